@@ -0,0 +1,44 @@
+package com.teenup.contest.config;
+
+import com.teenup.contest.repository.ClassesRepository;
+import com.teenup.contest.service.ClassCatalogIndex;
+import com.teenup.contest.service.ClassRosterCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Điền/đồng bộ các cột dẫn xuất mà ddl-auto=update không tự tính cho dữ liệu cũ.
+ * Chạy sau DevDataSeeder để dữ liệu seed cũng được tính.
+ */
+@Slf4j
+@Component
+@Order(2)
+@RequiredArgsConstructor
+public class DataBackfillRunner implements ApplicationRunner {
+
+    private final ClassesRepository classesRepo;
+    private final ClassCatalogIndex catalogIndex;
+    private final ClassRosterCache rosterCache;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int slots = classesRepo.backfillSlotMinutes();
+        if (slots > 0) log.info("[DataBackfill] Tính start/end minute cho {} lớp", slots);
+
+        // chỉ ghi các lớp bị lệch (thường là 0) thay vì UPDATE cả bảng mỗi lần khởi động
+        List<Long> drifted = classesRepo.findDriftedRegisteredCountIds();
+        if (drifted.isEmpty()) return;
+        int classes = classesRepo.recountRegistrations(drifted);
+        catalogIndex.onClassesChanged();
+        rosterCache.evictClasses(drifted);
+        log.info("[DataBackfill] Đồng bộ registered_count cho {} lớp", classes);
+    }
+}
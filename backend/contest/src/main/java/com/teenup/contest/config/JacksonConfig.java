@@ -0,0 +1,48 @@
+package com.teenup.contest.config;
+
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.AnnotationIntrospectorPair;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.teenup.contest.dto.response.ClassResponse;
+import com.teenup.contest.support.SparseFields;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+public class JacksonConfig {
+
+    // Mọi DTO response đều gắn filter `fields=`; mặc định (không có fields) ghi ra đầy đủ
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsCustomizer() {
+        return builder -> builder
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()))
+                .annotationIntrospector(current -> AnnotationIntrospectorPair.pair(
+                        current != null ? current : new JacksonAnnotationIntrospector(),
+                        new ResponseFilterIntrospector()));
+    }
+
+    // Accept: application/cbor → cùng DTO, cùng cấu hình (fields=, NON_NULL, JavaTime) nhưng mã hoá nhị phân
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    // Gắn filter id cho các class trong dto.response (@JsonFilter viết tay vẫn được ưu tiên)
+    private static final class ResponseFilterIntrospector extends NopAnnotationIntrospector {
+        private static final String RESPONSE_PACKAGE = ClassResponse.class.getPackageName();
+
+        @Override
+        public Object findFilterId(Annotated a) {
+            return a instanceof AnnotatedClass c && c.getRawType().getPackageName().equals(RESPONSE_PACKAGE)
+                    ? SparseFields.FILTER_ID : null;
+        }
+    }
+}
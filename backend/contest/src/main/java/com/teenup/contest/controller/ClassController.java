@@ -1,18 +1,29 @@
 package com.teenup.contest.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.teenup.contest.dto.request.CreateClassRequest;
 import com.teenup.contest.dto.request.MoveRegistrationRequest;
 import com.teenup.contest.dto.request.UpdateClassRequest;
 import com.teenup.contest.dto.response.ClassResponse;
-import com.teenup.contest.entity.ClassRegistrationEntity;
-import com.teenup.contest.mapper.ClassReadMapper;
+import com.teenup.contest.dto.response.ClassWithStudentsResponse;
+import com.teenup.contest.exception.InvalidDayException;
+import com.teenup.contest.service.ClassReadService;
 import com.teenup.contest.service.ClassRegistrationService;
 import com.teenup.contest.service.ClassService;
+import com.teenup.contest.service.ResourceVersions;
+import com.teenup.contest.support.ConditionalGet;
+import com.teenup.contest.support.KeysetPaging;
+import com.teenup.contest.support.SparseFields;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
 
@@ -22,8 +33,11 @@ import java.util.List;
 public class ClassController {
 
     private final ClassService service;
-    private final ClassReadMapper mapper;
     private final ClassRegistrationService regService;
+    private final ClassReadService readService;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions versions;
+
     // POST /api/classes – tạo lớp mới
     @PostMapping
     public ResponseEntity<ClassResponse> create(@Valid @RequestBody CreateClassRequest req) {
@@ -34,29 +48,43 @@ public class ClassController {
     // GET /api/classes?day={weekday} – danh sách lớp theo ngày
     // (không truyền day => trả tất cả)
     @GetMapping
-    public List<ClassResponse> list(@RequestParam(name = "day", required = false) Integer day) {
+    public List<ClassResponse> list(@RequestParam(name = "day", required = false) Integer day, WebRequest request) {
+        if (day != null && (day < 1 || day > 7)) throw new InvalidDayException(day);
+        if (ConditionalGet.notModified(request, versions.classes(day))) return null;
         return service.listByDay(day);
     }
 
+    // GET /api/classes?availableFor={studentId} – lớp còn chỗ và không trùng lịch với học sinh
+    @GetMapping(params = "availableFor")
+    public List<ClassResponse> availableFor(@RequestParam("availableFor") Long studentId) {
+        return service.listAvailableFor(studentId);
+    }
+
+    // Export NDJSON (Accept: application/x-ndjson): mỗi dòng 1 lớp kèm học sinh, ghi ra ngay khi đọc xong lớp đó
+    @GetMapping(params = "expand=registrations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportWithRegistrations(
+            @RequestParam(name = "day", required = false) Integer day) {
+        StreamingResponseBody body = out -> readService.streamClassesWithStudents(day, c -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(c));
+                out.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // GET /api/classes?expand=registrations[&day=][&limit=&cursor=] – lớp kèm học sinh
+    // Có limit/cursor → phân trang keyset, cursor trang sau ở header X-Next-Cursor
     @GetMapping(params = "expand=registrations")
-    public List<?> list(@RequestParam(name = "day", required = false) Integer day,
-                        @RequestParam(name = "expand", required = false) String expand) {
-        if ("registrations".equalsIgnoreCase(expand)) {
-            // Lấy entity đã fetch join
-            var classes = service.listEntitiesByDay(day);
-            // Map sang DTO có students
-            return classes.stream().map(c ->
-                    mapper.toClassWithStudents(
-                            c,
-                            c.getRegistrations().stream()
-                                    .map(ClassRegistrationEntity::getStudent)
-                                    .distinct()
-                                    .toList()
-                    )
-            ).toList();
-        }
-        // Trả gọn như cũ (không students)
-        return service.listByDay(day);
+    public ResponseEntity<List<ClassWithStudentsResponse>> listWithRegistrations(
+            @RequestParam(name = "day", required = false) Integer day,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = SparseFields.PARAM, required = false) String fields) {
+        return KeysetPaging.ok(readService.listClassesWithStudents(day, cursor, limit,
+                SparseFields.parse(fields).includes("students")));
     }
 
     // Cập nhật lớp (partial)
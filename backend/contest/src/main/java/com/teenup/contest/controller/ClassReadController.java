@@ -4,11 +4,14 @@ import com.teenup.contest.dto.response.ClassWithStudentsResponse;
 import com.teenup.contest.dto.response.RegisteredStudentBrief;
 import com.teenup.contest.dto.response.StudentClassBrief;
 import com.teenup.contest.service.ClassReadService;
+import com.teenup.contest.service.ResourceVersions;
+import com.teenup.contest.support.ConditionalGet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,10 +21,12 @@ import java.util.List;
 public class ClassReadController {
 
     private final ClassReadService service;
+    private final ResourceVersions versions;
 
     // 1) Class detail + students
     @GetMapping("/classes/{classId}")
-    public ClassWithStudentsResponse classDetail(@PathVariable Long classId) {
+    public ClassWithStudentsResponse classDetail(@PathVariable Long classId, WebRequest request) {
+        if (ConditionalGet.notModified(request, versions.classDetail(classId))) return null;
         return service.getClassWithStudents(classId);
     }
 
@@ -1,23 +1,83 @@
 package com.teenup.contest.controller;
 
+import com.teenup.contest.dto.request.AttendanceRequest;
+import com.teenup.contest.dto.request.BulkRegisterRequest;
 import com.teenup.contest.dto.request.RegisterRequest;
+import com.teenup.contest.dto.response.AttendanceResponse;
+import com.teenup.contest.dto.response.BulkRegisterResponse;
+import com.teenup.contest.dto.response.WaitlistEntryResponse;
+import com.teenup.contest.exception.ClassFullException;
+import com.teenup.contest.service.AttendanceService;
 import com.teenup.contest.service.ClassRegistrationService;
+import com.teenup.contest.service.WaitlistService;
+import com.teenup.contest.service.idempotency.IdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/classes")
 public class ClassRegistrationController {
 
     private final ClassRegistrationService service;
+    private final IdempotencyService idempotency;
+    private final WaitlistService waitlistService;
+    private final AttendanceService attendanceService;
 
     @PostMapping("/{classId}/register")
-    public ResponseEntity<Void> register(@PathVariable("classId") Long classId,
-                                         @Valid @RequestBody RegisterRequest req) {
-        service.register(classId, req);
+    public ResponseEntity<WaitlistEntryResponse> register(@PathVariable("classId") Long classId,
+                                                          @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                                          @RequestParam(name = "waitlist", defaultValue = "false") boolean waitlist,
+                                                          @Valid @RequestBody RegisterRequest req) {
+        try {
+            // client retry cùng key → không chạy lại transaction
+            idempotency.execute(idempotencyKey, "register:" + classId + ":" + req.studentId(),
+                    () -> service.register(classId, req));
+        } catch (ClassFullException ex) {
+            if (!waitlist) throw ex;
+            // ?waitlist=true: lớp đầy → vào hàng chờ, được xếp chỗ tự động khi có người rời lớp
+            return ResponseEntity.accepted().body(waitlistService.join(classId, req.studentId()));
+        }
         return ResponseEntity.noContent().build(); // 204 No Content
     }
+
+    // Đăng ký hàng loạt: trả kết quả từng cặp (classId, studentId)
+    @PostMapping("/registrations/batch")
+    public BulkRegisterResponse registerBatch(@Valid @RequestBody BulkRegisterRequest req) {
+        return service.registerBatch(req);
+    }
+
+    // Điểm danh 1 buổi: trừ 1 buổi cho mỗi học sinh có mặt, trả kết quả từng học sinh
+    // Idempotency-Key: gửi lại (vd do timeout) không trừ thêm buổi
+    @PostMapping("/{classId}/attendance")
+    public AttendanceResponse attendance(@PathVariable Long classId,
+                                         @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                         @Valid @RequestBody AttendanceRequest req) {
+        // scope gồm cả body: cùng key nhưng ngày / danh sách học sinh khác thì không trả nhầm kết quả cũ
+        return idempotency.execute(idempotencyKey, idempotency.scopeWithBody("attendance:" + classId, req),
+                AttendanceResponse.class, () -> attendanceService.checkIn(classId, req));
+    }
+
+    // Hàng chờ của lớp (FIFO)
+    @PostMapping("/{classId}/waitlist")
+    public ResponseEntity<WaitlistEntryResponse> joinWaitlist(@PathVariable Long classId,
+                                                              @Valid @RequestBody RegisterRequest req) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(waitlistService.join(classId, req.studentId()));
+    }
+
+    @GetMapping("/{classId}/waitlist")
+    public List<WaitlistEntryResponse> waitlist(@PathVariable Long classId) {
+        return waitlistService.list(classId);
+    }
+
+    @DeleteMapping("/{classId}/waitlist/{studentId}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable Long classId, @PathVariable Long studentId) {
+        waitlistService.leave(classId, studentId);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -3,14 +3,20 @@ package com.teenup.contest.controller;
 import com.teenup.contest.dto.request.CreateParentRequest;
 import com.teenup.contest.dto.request.ReassignStudentsRequest;
 import com.teenup.contest.dto.request.UpdateParentRequest;
+import com.teenup.contest.dto.response.ParentDashboardResponse;
 import com.teenup.contest.dto.response.ParentResponse;
 import com.teenup.contest.dto.response.ParentStudentItem;
 import com.teenup.contest.dto.response.ReassignResultResponse;
+import com.teenup.contest.service.ParentDashboardService;
 import com.teenup.contest.service.ParentService;
+import com.teenup.contest.service.ResourceVersions;
+import com.teenup.contest.support.ConditionalGet;
+import com.teenup.contest.support.KeysetPaging;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.util.List;
@@ -20,6 +26,9 @@ import java.util.List;
 @RequestMapping("api/parents")
 public class ParentsCotroller {
     private final ParentService service;
+    private final ResourceVersions versions;
+    private final ParentDashboardService dashboardService;
+
     @PostMapping
     public ResponseEntity<ParentResponse> create(@Valid @RequestBody CreateParentRequest req) {
         ParentResponse resp = service.create(req);
@@ -28,13 +37,25 @@ public class ParentsCotroller {
 
     // GET /api/parents/{id} – xem chi tiết
     @GetMapping("/{id}")
-    public ResponseEntity<ParentResponse> get(@PathVariable Long id) {
+    public ResponseEntity<ParentResponse> get(@PathVariable Long id, WebRequest request) {
+        if (ConditionalGet.notModified(request, versions.parent(id))) return null;
         return ResponseEntity.ok(service.getById(id));
     }
 
+    // GET /api/parents/list?limit=&cursor= – phân trang keyset, cursor trang sau ở header X-Next-Cursor
     @GetMapping("list")
-    public ResponseEntity<List<ParentResponse>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<ParentResponse>> getAll(@RequestParam(name = "cursor", required = false) String cursor,
+                                                       @RequestParam(name = "limit", required = false) Integer limit,
+                                                       WebRequest request) {
+        if (ConditionalGet.notModified(request, versions.parents())) return null;
+        return KeysetPaging.ok(service.getAll(cursor, limit));
+    }
+
+    // GET /api/parents/search?q=&limit= – tìm theo tên / SĐT / email, không phân biệt dấu
+    @GetMapping("search")
+    public List<ParentResponse> search(@RequestParam("q") String q,
+                                       @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return service.search(q, Math.max(1, Math.min(limit, 100)));
     }
 
     // Cập nhật 1 phần thông tin phụ huynh
@@ -65,6 +86,12 @@ public class ParentsCotroller {
         return service.listStudents(parentId);
     }
 
+    // GET /api/parents/{parentId}/dashboard – phụ huynh + học sinh + lớp + gói học trong 1 lần gọi
+    @GetMapping("/{parentId}/dashboard")
+    public ParentDashboardResponse dashboard(@PathVariable Long parentId) {
+        return dashboardService.dashboard(parentId);
+    }
+
     /** Unassign: xoá học sinh thuộc parent (theo ngữ cảnh parent) */
     @DeleteMapping("/{parentId}/students/{studentId}")
     public ResponseEntity<Void> deleteChild(@PathVariable Long parentId, @PathVariable Long studentId) {
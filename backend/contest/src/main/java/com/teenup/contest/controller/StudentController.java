@@ -4,11 +4,16 @@ import com.teenup.contest.dto.request.CreateStudentRequest;
 import com.teenup.contest.dto.request.UpdateStudentRequest;
 import com.teenup.contest.dto.response.StudentClassItem;
 import com.teenup.contest.dto.response.StudentResponse;
+import com.teenup.contest.service.ResourceVersions;
 import com.teenup.contest.service.StudentService;
+import com.teenup.contest.support.ConditionalGet;
+import com.teenup.contest.support.KeysetPaging;
+import com.teenup.contest.support.SparseFields;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.util.List;
@@ -18,6 +23,8 @@ import java.util.List;
 @RequestMapping("api/students")
 public class StudentController {
     private final StudentService service;
+    private final ResourceVersions versions;
+
     @PostMapping
     public ResponseEntity<StudentResponse> create(@Valid @RequestBody CreateStudentRequest req) {
         StudentResponse resp = service.create(req);
@@ -25,13 +32,26 @@ public class StudentController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<StudentResponse> get(@PathVariable Long id) {
+    public ResponseEntity<StudentResponse> get(@PathVariable Long id, WebRequest request) {
+        if (ConditionalGet.notModified(request, versions.student(id))) return null;
         return ResponseEntity.ok(service.getById(id));
     }
 
+    // GET /api/students/list?limit=&cursor=&fields= – phân trang keyset, cursor trang sau ở header X-Next-Cursor
     @GetMapping("list")
-    public  ResponseEntity<List<StudentResponse>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public  ResponseEntity<List<StudentResponse>> getAll(@RequestParam(name = "cursor", required = false) String cursor,
+                                                         @RequestParam(name = "limit", required = false) Integer limit,
+                                                         @RequestParam(name = SparseFields.PARAM, required = false) String fields,
+                                                         WebRequest request) {
+        if (ConditionalGet.notModified(request, versions.students())) return null;
+        return KeysetPaging.ok(service.getAll(cursor, limit, SparseFields.parse(fields).includes("parent")));
+    }
+
+    // GET /api/students/search?q=&limit= – tìm theo tên, không phân biệt dấu
+    @GetMapping("search")
+    public List<StudentResponse> search(@RequestParam("q") String q,
+                                        @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return service.search(q, Math.max(1, Math.min(limit, 100)));
     }
 
     @DeleteMapping("/{id}")
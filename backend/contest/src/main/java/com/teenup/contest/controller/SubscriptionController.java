@@ -1,14 +1,21 @@
 package com.teenup.contest.controller;
 
+import com.teenup.contest.dto.request.BulkExtendRequest;
 import com.teenup.contest.dto.request.CreateSubscriptionRequest;
 import com.teenup.contest.dto.request.ExtendSubscriptionRequest;
 import com.teenup.contest.dto.request.UpdateSubscriptionRequest;
+import com.teenup.contest.dto.response.BulkExtendResponse;
 import com.teenup.contest.dto.response.SubscriptionResponse;
+import com.teenup.contest.service.ResourceVersions;
 import com.teenup.contest.service.SubscriptionService;
+import com.teenup.contest.service.idempotency.IdempotencyService;
+import com.teenup.contest.support.ConditionalGet;
+import com.teenup.contest.support.KeysetPaging;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
 import java.util.List;
@@ -19,6 +26,8 @@ import java.util.List;
 public class SubscriptionController {
 
     private final SubscriptionService service;
+    private final IdempotencyService idempotency;
+    private final ResourceVersions versions;
 
     // POST /api/subscriptions – khởi tạo gói học
     @PostMapping
@@ -29,21 +38,30 @@ public class SubscriptionController {
 
     // PATCH /api/subscriptions/{id}/use – dùng 1 buổi
     @PatchMapping("/{id}/use")
-    public SubscriptionResponse use(@PathVariable Long id) {
-        return service.useOne(id);
+    // Idempotency-Key: retry do timeout không trừ thêm buổi
+    public SubscriptionResponse use(@PathVariable Long id,
+                                    @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotency.execute(idempotencyKey, "use:" + id, SubscriptionResponse.class,
+                () -> service.useOne(id));
     }
 
     // GET /api/subscriptions/{id} – trạng thái gói
     @GetMapping("/{id}")
-    public SubscriptionResponse get(@PathVariable Long id) {
+    public SubscriptionResponse get(@PathVariable Long id, WebRequest request) {
+        if (ConditionalGet.notModified(request, versions.subscription(id))) return null;
         return service.get(id);
     }
 
     @GetMapping
-    public List<SubscriptionResponse> list(
-            @RequestParam(name = "studentId", required = false) Long studentId
+    public ResponseEntity<List<SubscriptionResponse>> list(
+            @RequestParam(name = "studentId", required = false) Long studentId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            WebRequest request
     ) {
-        return service.list(studentId); // service.list đã map entity -> DTO
+        if (ConditionalGet.notModified(request, versions.subscriptions(studentId))) return null;
+        // phân trang keyset theo id, cursor trang sau ở header X-Next-Cursor
+        return KeysetPaging.ok(service.list(studentId, cursor, limit));
     }
 
     // ✅ BỔ SUNG: cập nhật partial
@@ -71,5 +89,14 @@ public class SubscriptionController {
                                        @Valid @RequestBody ExtendSubscriptionRequest req) {
         return service.extend(id, req);
     }
-}
 
+    // Gia hạn hàng loạt (theo danh sách id hoặc bộ lọc), trả kết quả từng gói
+    // Idempotency-Key: gửi lại (vd do timeout) không cộng thêm buổi lần nữa
+    @PostMapping("/extend/batch")
+    public BulkExtendResponse extendBatch(@RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                          @Valid @RequestBody BulkExtendRequest req) {
+        // scope gồm cả body: cùng key nhưng bộ lọc / số buổi khác thì không trả nhầm kết quả cũ
+        return idempotency.execute(idempotencyKey, idempotency.scopeWithBody("extend-batch", req), BulkExtendResponse.class,
+                () -> service.extendBatch(req));
+    }
+}
@@ -0,0 +1,16 @@
+package com.teenup.contest.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** Điểm danh 1 buổi học: mỗi học sinh có mặt trừ 1 buổi. date bỏ trống → hôm nay. */
+public record AttendanceRequest(
+        LocalDate date,
+
+        @NotEmpty(message = "studentIds không được để trống")
+        @Size(max = 500, message = "Tối đa 500 học sinh mỗi lần")
+        List<Long> studentIds
+) {}
@@ -0,0 +1,30 @@
+package com.teenup.contest.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Gia hạn nhiều gói cùng lúc (vd: sang kỳ mới). Chọn gói bằng MỘT trong hai cách:
+ * - subscriptionIds: danh sách id
+ * - bộ lọc: packageName và/hoặc khoảng endDate hiện tại [endDateFrom, endDateTo]
+ * Thay đổi giống PATCH /{id}/extend: addSessions (>=1) và/hoặc endDate mới (>= endDate hiện tại).
+ */
+public record BulkExtendRequest(
+        @Size(max = 1000, message = "Tối đa 1000 gói mỗi lần")
+        List<Long> subscriptionIds,
+
+        String packageName,
+        LocalDate endDateFrom,
+        LocalDate endDateTo,
+
+        @Min(value = 1, message = "addSessions phải >= 1")
+        Integer addSessions,
+        LocalDate endDate
+) {
+    public boolean hasFilter() {
+        return packageName != null || endDateFrom != null || endDateTo != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.teenup.contest.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/** Đăng ký mọi studentIds vào mọi classIds (vd: cả khối vào 1-2 lớp). */
+public record BulkRegisterRequest(
+        @NotEmpty(message = "classIds không được để trống")
+        @Size(max = 50, message = "Tối đa 50 lớp mỗi lần")
+        List<Long> classIds,
+
+        @NotEmpty(message = "studentIds không được để trống")
+        @Size(max = 1000, message = "Tối đa 1000 học sinh mỗi lần")
+        List<Long> studentIds
+) {}
@@ -0,0 +1,13 @@
+package com.teenup.contest.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** status = CONSUMED (kèm gói bị trừ) hoặc mã lỗi (ErrorCode) khi không trừ được */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record AttendanceItemResult(
+        Long studentId,
+        String status,
+        Long subscriptionId,
+        Integer remainingSessions,
+        String message
+) {}
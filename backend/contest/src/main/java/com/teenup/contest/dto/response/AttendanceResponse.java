@@ -0,0 +1,13 @@
+package com.teenup.contest.dto.response;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AttendanceResponse(
+        Long classId,
+        LocalDate date,
+        int requested,
+        int consumed,
+        int rejected,
+        List<AttendanceItemResult> items
+) {}
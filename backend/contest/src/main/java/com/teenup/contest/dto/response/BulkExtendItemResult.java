@@ -0,0 +1,15 @@
+package com.teenup.contest.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+/** status = EXTENDED (kèm totalSessions / endDate mới) hoặc mã lỗi (ErrorCode) khi bị từ chối */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkExtendItemResult(
+        Long subscriptionId,
+        String status,
+        Integer totalSessions,
+        LocalDate endDate,
+        String message
+) {}
@@ -0,0 +1,10 @@
+package com.teenup.contest.dto.response;
+
+import java.util.List;
+
+public record BulkExtendResponse(
+        int requested,
+        int extended,
+        int rejected,
+        List<BulkExtendItemResult> items
+) {}
@@ -0,0 +1,12 @@
+package com.teenup.contest.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** status = REGISTERED hoặc mã lỗi (ErrorCode) khi bị từ chối */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkRegisterItemResult(
+        Long classId,
+        Long studentId,
+        String status,
+        String message
+) {}
@@ -0,0 +1,10 @@
+package com.teenup.contest.dto.response;
+
+import java.util.List;
+
+public record BulkRegisterResponse(
+        int requested,
+        int registered,
+        int rejected,
+        List<BulkRegisterItemResult> items
+) {}
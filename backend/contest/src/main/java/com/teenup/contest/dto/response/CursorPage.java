@@ -0,0 +1,10 @@
+package com.teenup.contest.dto.response;
+
+import java.util.List;
+
+/** 1 trang kết quả phân trang keyset; nextCursor = null khi đã hết dữ liệu. */
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
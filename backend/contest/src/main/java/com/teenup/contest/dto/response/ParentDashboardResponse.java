@@ -0,0 +1,23 @@
+package com.teenup.contest.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ParentDashboardResponse(
+        ParentResponse parent,
+        List<Student> students
+) {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Student(
+            Long id,
+            String name,
+            LocalDate dob,
+            String gender,       // M/F/O
+            String currentGrade,
+            List<StudentClassBrief> classes,
+            List<SubscriptionResponse> subscriptions
+    ) {}
+}
@@ -1,6 +1,7 @@
 package com.teenup.contest.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.teenup.contest.entity.Gender;
 
 import java.time.LocalDate;
 
@@ -11,4 +12,9 @@ public record ParentStudentItem(
         LocalDate dob,
         String gender,       // M/F/O
         String currentGrade
-) {}
+) {
+    // Dùng cho JPQL constructor expression (select new ...)
+    public ParentStudentItem(Long id, String name, LocalDate dob, Gender gender, String currentGrade) {
+        this(id, name, dob, gender == null ? null : gender.name(), currentGrade);
+    }
+}
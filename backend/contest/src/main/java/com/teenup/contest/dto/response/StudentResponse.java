@@ -15,4 +15,19 @@ public record StudentResponse(
         ParentBrief parent,
         java.time.Instant createdAt,
         java.time.Instant updatedAt
-) {}
+) {
+    // Dùng cho JPQL constructor expression (select new ...): parent truyền dạng cột phẳng
+    public StudentResponse(Long id, String name, LocalDate dob, Gender gender, String currentGrade,
+                           Long parentId, String parentName, String parentPhone, String parentEmail,
+                           java.time.Instant createdAt, java.time.Instant updatedAt) {
+        this(id, name, dob, gender, currentGrade,
+                parentId == null ? null : new ParentBrief(parentId, parentName, parentPhone, parentEmail),
+                createdAt, updatedAt);
+    }
+
+    // Bản rút gọn không kèm parent (khi `fields=` không chọn parent → không join bảng parents)
+    public StudentResponse(Long id, String name, LocalDate dob, Gender gender, String currentGrade,
+                           java.time.Instant createdAt, java.time.Instant updatedAt) {
+        this(id, name, dob, gender, currentGrade, null, createdAt, updatedAt);
+    }
+}
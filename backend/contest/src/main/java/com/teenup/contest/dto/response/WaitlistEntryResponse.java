@@ -0,0 +1,14 @@
+package com.teenup.contest.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record WaitlistEntryResponse(
+        Long classId,
+        Long studentId,
+        String studentName,
+        long position,
+        Instant createdAt
+) {}
@@ -0,0 +1,43 @@
+package com.teenup.contest.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Hàng chờ của lớp đã đầy; thứ tự FIFO theo id */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "class_waitlist",
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_class_student",
+                columnNames = {"class_id", "student_id"}),
+        indexes = {
+                @Index(name = "idx_waitlist_class", columnList = "class_id, id"),
+                @Index(name = "idx_waitlist_student", columnList = "student_id")
+        })
+public class ClassWaitlistEntity extends BaseAuditableEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "class_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_waitlist_class"))
+    private ClassesEntity clazz;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "student_id", nullable = false,
+            foreignKey = @ForeignKey(name = "fk_waitlist_student"))
+    private StudentsEntity student;
+
+    public ClassWaitlistEntity(ClassesEntity clazz, StudentsEntity student) {
+        this.clazz = clazz;
+        this.student = student;
+    }
+}
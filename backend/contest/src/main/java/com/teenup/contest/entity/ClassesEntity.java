@@ -1,4 +1,5 @@
 package com.teenup.contest.entity;
+import com.teenup.contest.support.TimeSlot;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -9,7 +10,8 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Entity
-@Table(name = "classes")
+@Table(name = "classes",
+        indexes = @Index(name = "idx_class_day_time", columnList = "day_of_week, start_minute, end_minute"))
 public class ClassesEntity extends BaseAuditableEntity {
 
     @Id
@@ -35,6 +37,13 @@ public class ClassesEntity extends BaseAuditableEntity {
     @Column(name = "time_slot", nullable = false, length = 20)
     private String timeSlot;
 
+    /** Phút bắt đầu/kết thúc trong ngày, dẫn xuất từ timeSlot (so sánh trùng lịch bằng số nguyên) */
+    @Column(name = "start_minute")
+    private Integer startMinute;
+
+    @Column(name = "end_minute")
+    private Integer endMinute;
+
     @NotBlank @Size(max = 100)
     @Column(name = "teacher_name", nullable = false, length = 100)
     private String teacherName;
@@ -43,7 +52,26 @@ public class ClassesEntity extends BaseAuditableEntity {
     @Column(name = "max_students", nullable = false)
     private Integer maxStudents;
 
+    /** Số chỗ đã giữ; chỉ thay đổi qua UPDATE có điều kiện trong ClassesRepository */
+    @Column(name = "registered_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "int not null default 0")
+    private Integer registeredCount = 0;
+
     // 1 class có nhiều registrations
     @OneToMany(mappedBy = "clazz", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ClassRegistrationEntity> registrations = new LinkedHashSet<>();
-}
\ No newline at end of file
+
+    // đổi timeSlot thì tính lại start/end minute luôn (MapStruct & service đều đi qua setter)
+    public void setTimeSlot(String timeSlot) {
+        this.timeSlot = timeSlot;
+        TimeSlot slot = timeSlot != null ? TimeSlot.parse(timeSlot) : null;
+        this.startMinute = slot != null ? slot.startMinute() : null;
+        this.endMinute = slot != null ? slot.endMinute() : null;
+    }
+
+    public TimeSlot slot() {
+        return (startMinute != null && endMinute != null)
+                ? new TimeSlot(startMinute, endMinute)
+                : TimeSlot.parse(timeSlot);
+    }
+}
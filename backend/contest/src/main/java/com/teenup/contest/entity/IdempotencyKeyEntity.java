@@ -0,0 +1,32 @@
+package com.teenup.contest.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/** Bảng dùng chung giữa nhiều node khi app.idempotency.store=database */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "idempotency_keys",
+        indexes = @Index(name = "idx_idem_created", columnList = "created_at"))
+public class IdempotencyKeyEntity {
+
+    @Id
+    @Column(name = "idem_key", length = 200)
+    private String key;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
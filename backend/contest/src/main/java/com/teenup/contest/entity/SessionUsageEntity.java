@@ -0,0 +1,47 @@
+package com.teenup.contest.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Sổ dùng buổi (append-only): mỗi lần check-in / điểm danh / reset là 1 dòng, không sửa, không xoá
+ * (chỉ job gộp bật cờ compacted). Số buổi đã dùng = subscriptions.used_sessions (snapshot đã gộp)
+ * + tổng delta các dòng compacted = false.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Table(name = "session_usages",
+        indexes = {
+                @Index(name = "idx_usage_sub", columnList = "subscription_id, compacted"),
+                @Index(name = "idx_usage_pending", columnList = "compacted, subscription_id")
+        })
+public class SessionUsageEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "subscription_id", nullable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_usage_sub"))
+    private SubscriptionsEntity subscription;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "delta", nullable = false, updatable = false)
+    private int delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, updatable = false, length = 20)
+    private UsageReason reason;
+
+    /** Đã cộng vào subscriptions.used_sessions; bật cùng transaction với lần cộng đó */
+    @Column(name = "compacted", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "boolean not null default false")
+    private boolean compacted;
+}
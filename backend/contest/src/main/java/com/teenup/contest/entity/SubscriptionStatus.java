@@ -0,0 +1,38 @@
+package com.teenup.contest.entity;
+
+import java.time.LocalDate;
+
+/**
+ * Trạng thái gói học lưu ở cột subscriptions.status (job quét định kỳ + các thao tác sửa gói cập nhật).
+ * Chỉ CLOSED (hết hạn VÀ hết buổi) mới không còn tính là "còn hiệu lực / còn buổi".
+ */
+public enum SubscriptionStatus {
+    ACTIVE(false, false),     // chưa hết hạn, còn buổi
+    EXHAUSTED(false, true),   // chưa hết hạn, đã dùng hết buổi
+    EXPIRED(true, false),     // đã quá endDate, vẫn còn buổi
+    CLOSED(true, true);       // đã quá endDate và hết buổi
+
+    private final boolean expired;
+    private final boolean exhausted;
+
+    SubscriptionStatus(boolean expired, boolean exhausted) {
+        this.expired = expired;
+        this.exhausted = exhausted;
+    }
+
+    public boolean expired() {
+        return expired;
+    }
+
+    public boolean exhausted() {
+        return exhausted;
+    }
+
+    /** Cùng quy tắc với SubscriptionsRepository.updateStatus */
+    public static SubscriptionStatus of(LocalDate today, LocalDate endDate, int totalSessions, int usedSessions) {
+        boolean isExpired = endDate.isBefore(today);
+        boolean isExhausted = usedSessions >= totalSessions;
+        if (isExpired) return isExhausted ? CLOSED : EXPIRED;
+        return isExhausted ? EXHAUSTED : ACTIVE;
+    }
+}
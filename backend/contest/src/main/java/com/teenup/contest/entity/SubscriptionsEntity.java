@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,7 +18,8 @@ import java.time.LocalDate;
 @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Entity
-@Table(name = "subscriptions")
+@Table(name = "subscriptions",
+        indexes = @Index(name = "idx_sub_student_status", columnList = "student_id, status"))
 public class SubscriptionsEntity extends BaseAuditableEntity {
 
     @Id
@@ -46,8 +48,30 @@ public class SubscriptionsEntity extends BaseAuditableEntity {
     @Column(name = "total_sessions", nullable = false)
     private Integer totalSessions;
 
+    /** Snapshot số buổi đã dùng của các dòng sổ đã gộp (compacted); chỉ job gộp sổ cập nhật (SQL) */
     @NotNull @Min(0)
-    @Column(name = "used_sessions", nullable = false)
+    @Column(name = "used_sessions", nullable = false, updatable = false)
     private Integer usedSessions = 0;
-}
 
+    /** Tổng delta các dòng sổ chưa gộp (thường rất ít dòng, đi theo index idx_usage_sub) */
+    @Setter(AccessLevel.NONE)
+    @Formula("(select coalesce(sum(u.delta), 0) from session_usages u"
+            + " where u.subscription_id = id and u.compacted = false)")
+    private Integer pendingSessions = 0;
+
+    /** Job quét (SubscriptionStatusSweeper) cập nhật khi hết hạn / hết buổi; sửa gói thì tính lại ngay */
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16,
+            columnDefinition = "varchar(16) not null default 'ACTIVE'")
+    private SubscriptionStatus status = SubscriptionStatus.ACTIVE;
+
+    /** Số buổi đã dùng hiện tại = snapshot + phần chưa gộp */
+    public int currentUsedSessions() {
+        return usedSessions + (pendingSessions != null ? pendingSessions : 0);
+    }
+
+    public void refreshStatus(LocalDate today, int used) {
+        status = SubscriptionStatus.of(today, endDate, totalSessions, used);
+    }
+}
@@ -0,0 +1,8 @@
+package com.teenup.contest.entity;
+
+/** Lý do của 1 dòng trong sổ dùng buổi (session_usages). */
+public enum UsageReason {
+    CHECK_IN,    // PATCH /api/subscriptions/{id}/use
+    ATTENDANCE,  // điểm danh cả lớp
+    RESET        // admin reset số buổi đã dùng về 0
+}
@@ -2,6 +2,7 @@ package com.teenup.contest.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -82,6 +83,17 @@ public class ApiExceptionHandler {
                 Instant.now(), ec.status().value(), ec.code(), msg, req.getRequestURI()));
     }
 
+    /**
+     * Xung đột ghi đồng thời (optimistic lock @Version, deadlock...) đã hết lượt retry của @RetryOnConflict.
+     * Trả 409 để client thử lại thay vì 500.
+     */
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ApiError> handleConcurrency(ConcurrencyFailureException ex, HttpServletRequest req) {
+        var ec = ErrorCode.CONCURRENT_UPDATE;
+        return ResponseEntity.status(ec.status()).body(new ApiError(
+                Instant.now(), ec.status().value(), ec.code(), ec.defaultMessage(), req.getRequestURI()));
+    }
+
     /**
      * Bắt mọi Exception còn lại (NullPointer, IllegalState, v.v.).
      * Không để lỗi rơi ra ngoài gây 500 mặc định không kiểm soát.
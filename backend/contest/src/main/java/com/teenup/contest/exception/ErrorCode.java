@@ -8,6 +8,7 @@ public enum ErrorCode {
     PARENT_NOT_FOUND   ("PARENT_NOT_FOUND",    HttpStatus.NOT_FOUND,            "Không tìm thấy phụ huynh"),
     VALIDATION_FAILED  ("VALIDATION_FAILED",   HttpStatus.UNPROCESSABLE_ENTITY, "Dữ liệu không hợp lệ"),
     CONFLICT           ("CONFLICT",            HttpStatus.CONFLICT,             "Dữ liệu xung đột/vi phạm ràng buộc"),
+    CONCURRENT_UPDATE  ("CONCURRENT_UPDATE",   HttpStatus.CONFLICT,             "Dữ liệu đang được cập nhật đồng thời, vui lòng thử lại"),
     INTERNAL_ERROR     ("INTERNAL_ERROR",      HttpStatus.INTERNAL_SERVER_ERROR,"Lỗi hệ thống không mong muốn"),
     PARENT_HAS_STUDENTS    ("PARENT_HAS_STUDENTS",    HttpStatus.CONFLICT,   "Phụ huynh đang có học sinh, không thể xoá"),
 
@@ -30,6 +31,7 @@ public enum ErrorCode {
 
     REGISTRATION_NOT_FOUND   ("REGISTRATION_NOT_FOUND",   HttpStatus.NOT_FOUND,  "Không tìm thấy đăng ký lớp"),
     SAME_CLASS_TARGET        ("SAME_CLASS_TARGET",        HttpStatus.CONFLICT,   "Lớp đích trùng với lớp hiện tại"),
+    WAITLIST_ENTRY_NOT_FOUND ("WAITLIST_ENTRY_NOT_FOUND", HttpStatus.NOT_FOUND,  "Học sinh không có trong hàng chờ của lớp"),
 
     SUBSCRIPTION_EXTEND_NO_PARAM ("SUBSCRIPTION_EXTEND_NO_PARAM", HttpStatus.UNPROCESSABLE_ENTITY, "Cần cung cấp addSessions hoặc endDate"),
 
@@ -39,7 +41,10 @@ public enum ErrorCode {
 
     SUBSCRIPTION_NOT_FOUND ("SUBSCRIPTION_NOT_FOUND", HttpStatus.NOT_FOUND, "Không tìm thấy gói học"),
     SUBSCRIPTION_INACTIVE  ("SUBSCRIPTION_INACTIVE",  HttpStatus.CONFLICT, "Gói học chưa hiệu lực hoặc đã hết hạn"),
-    NO_REMAINING_SESSIONS  ("NO_REMAINING_SESSIONS",  HttpStatus.CONFLICT, "Gói học đã dùng hết số buổi");
+    NO_REMAINING_SESSIONS  ("NO_REMAINING_SESSIONS",  HttpStatus.CONFLICT, "Gói học đã dùng hết số buổi"),
+    NO_ACTIVE_SUBSCRIPTION ("NO_ACTIVE_SUBSCRIPTION", HttpStatus.CONFLICT, "Học sinh không có gói học hiệu lực vào ngày này"),
+
+    IDEMPOTENCY_IN_PROGRESS ("IDEMPOTENCY_IN_PROGRESS", HttpStatus.CONFLICT, "Yêu cầu với Idempotency-Key này đang được xử lý, thử lại sau");
 
 
 
@@ -16,6 +16,9 @@ public interface ClassMapper {
     // DTO -> Entity (create)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "registrations", ignore = true)
+    @Mapping(target = "registeredCount", ignore = true)
+    @Mapping(target = "startMinute", ignore = true)
+    @Mapping(target = "endMinute", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "version", ignore = true)
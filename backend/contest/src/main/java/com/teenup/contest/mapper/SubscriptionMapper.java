@@ -17,11 +17,13 @@ public interface SubscriptionMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "version", ignore = true)
+    @Mapping(target = "status", ignore = true)
     SubscriptionsEntity toEntity(CreateSubscriptionRequest req);
 
     // Entity -> DTO
     @Mapping(target = "studentId", source = "student.id")
-    @Mapping(target = "remainingSessions", expression = "java(e.getTotalSessions() - e.getUsedSessions())")
+    @Mapping(target = "usedSessions", expression = "java(e.currentUsedSessions())")
+    @Mapping(target = "remainingSessions", expression = "java(e.getTotalSessions() - e.currentUsedSessions())")
     SubscriptionResponse toResponse(SubscriptionsEntity e);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -0,0 +1,13 @@
+package com.teenup.contest.repository;
+
+import java.util.List;
+
+/** Thao tác ghi hàng loạt bằng JDBC batch (IDENTITY id khiến Hibernate không batch INSERT được). */
+public interface ClassRegistrationsBatchRepository {
+
+    /**
+     * Thêm (classId, studentId) cho từng học sinh; dòng đã tồn tại thì bỏ qua thay vì vi phạm uk_class_student.
+     * Trả về các học sinh thực sự được thêm (theo update count từng dòng; SUCCESS_NO_INFO thì đọc lại từ DB).
+     */
+    List<Long> batchInsert(Long classId, List<Long> studentIds);
+}
@@ -0,0 +1,58 @@
+package com.teenup.contest.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class ClassRegistrationsBatchRepositoryImpl implements ClassRegistrationsBatchRepository {
+
+    private final JdbcTemplate jdbc;
+
+    @Override
+    public List<Long> batchInsert(Long classId, List<Long> studentIds) {
+        // cắt về giây: cột thời gian ở mọi độ chính xác lưu đúng giá trị này, đọc lại so sánh bằng được
+        Timestamp now = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        // INSERT ... SELECT ... WHERE NOT EXISTS: chạy được cả MySQL lẫn H2, trùng → 0 dòng thay vì lỗi cả batch
+        int[][] counts = jdbc.batchUpdate("""
+                INSERT INTO class_registrations (class_id, student_id, created_at, updated_at, version)
+                SELECT ?, ?, ?, ?, 0 FROM (SELECT 1) one
+                WHERE NOT EXISTS (SELECT 1 FROM class_registrations WHERE class_id = ? AND student_id = ?)
+                """, studentIds, studentIds.size(), (ps, studentId) -> {
+            ps.setLong(1, classId);
+            ps.setLong(2, studentId);
+            ps.setTimestamp(3, now);
+            ps.setTimestamp(4, now);
+            ps.setLong(5, classId);
+            ps.setLong(6, studentId);
+        });
+
+        List<Long> inserted = new ArrayList<>(studentIds.size());
+        List<Long> unknown = new ArrayList<>();
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int c : chunk) {
+                if (c > 0) inserted.add(studentIds.get(i));
+                else if (c == Statement.SUCCESS_NO_INFO) unknown.add(studentIds.get(i));
+                i++;
+            }
+        }
+
+        // driver không báo số dòng (vd. rewriteBatchedStatements) → đọc lại: dòng vừa thêm mang đúng created_at của lô này
+        if (!unknown.isEmpty()) {
+            Set<Long> stamped = new HashSet<>(jdbc.queryForList(
+                    "SELECT student_id FROM class_registrations WHERE class_id = ? AND created_at = ?",
+                    Long.class, classId, now));
+            unknown.stream().filter(stamped::contains).forEach(inserted::add);
+        }
+        return inserted;
+    }
+}
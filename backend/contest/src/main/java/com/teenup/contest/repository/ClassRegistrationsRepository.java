@@ -1,15 +1,24 @@
 package com.teenup.contest.repository;
 
 
+import com.teenup.contest.dto.response.RegisteredStudentBrief;
+import com.teenup.contest.dto.response.StudentClassBrief;
 import com.teenup.contest.entity.ClassRegistrationEntity;
 import com.teenup.contest.entity.ClassesEntity;
+import com.teenup.contest.repository.projection.ClassRosterEntry;
+import com.teenup.contest.repository.projection.StudentClassRow;
+import com.teenup.contest.repository.projection.StudentClassSlot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ClassRegistrationsRepository extends JpaRepository<ClassRegistrationEntity, Long> {
+public interface ClassRegistrationsRepository extends JpaRepository<ClassRegistrationEntity, Long>,
+        ClassRegistrationsBatchRepository {
 
     boolean existsByClazzIdAndStudentId(Long clazzId, Long studentId);
 
@@ -31,6 +40,48 @@ public interface ClassRegistrationsRepository extends JpaRepository<ClassRegistr
     """)
     List<ClassRegistrationEntity> findAllByClazzIdWithStudent(Long classId);
 
+    // Danh sách học sinh của lớp, đọc thẳng ra DTO
+    @Query("""
+        select new com.teenup.contest.dto.response.RegisteredStudentBrief(s.id, s.name, s.currentGrade)
+        from ClassRegistrationEntity r join r.student s
+        where r.clazz.id = :classId
+        order by s.id
+    """)
+    List<RegisteredStudentBrief> findStudentBriefsByClassId(Long classId);
+
+    // Roster của nhiều lớp trong 1 query (bước 2 của expand=registrations)
+    @Query("""
+        select new com.teenup.contest.repository.projection.ClassRosterEntry(r.clazz.id, s.id, s.name, s.currentGrade)
+        from ClassRegistrationEntity r join r.student s
+        where r.clazz.id in :classIds
+        order by s.id
+    """)
+    List<ClassRosterEntry> findRosterEntriesByClassIds(Collection<Long> classIds);
+
+    // Các lớp của học sinh, đọc thẳng ra DTO
+    @Query("""
+        select new com.teenup.contest.dto.response.StudentClassBrief(
+            c.id, c.name, c.subject, c.dayOfWeek, c.timeSlot, c.teacherName)
+        from ClassRegistrationEntity r join r.clazz c
+        where r.student.id = :studentId
+        order by c.dayOfWeek, c.startMinute, c.id
+    """)
+    List<StudentClassBrief> findClassBriefsByStudentId(Long studentId);
+
+    // Các lớp của mọi học sinh thuộc 1 phụ huynh – 1 query cho cả gia đình (dashboard)
+    @Query("""
+        select new com.teenup.contest.repository.projection.StudentClassRow(
+            r.student.id, c.id, c.name, c.subject, c.dayOfWeek, c.timeSlot, c.teacherName)
+        from ClassRegistrationEntity r join r.clazz c
+        where r.student.parent.id = :parentId
+        order by c.dayOfWeek, c.startMinute, c.id
+    """)
+    List<StudentClassRow> findClassRowsByParentId(Long parentId);
+
+    // Những học sinh trong studentIds đang học lớp classId
+    @Query("SELECT r.student.id FROM ClassRegistrationEntity r WHERE r.clazz.id = :classId AND r.student.id IN :studentIds")
+    List<Long> findRegisteredStudentIds(Long classId, Collection<Long> studentIds);
+
     @Query("SELECT COUNT(r) FROM ClassRegistrationEntity r WHERE r.student.id = :studentId")
     long countByStudentId(Long studentId);
 
@@ -52,6 +103,7 @@ public interface ClassRegistrationsRepository extends JpaRepository<ClassRegistr
     boolean existsByClassIdAndStudentId(Long classId, Long studentId);
 
 
+    // so sánh bằng cột phút (số nguyên) → dùng được idx_class_day_time, không STR_TO_DATE từng dòng
     @Query(value = """
         SELECT CASE WHEN COUNT(*) > 0 THEN TRUE ELSE FALSE END
         FROM class_registrations r_src
@@ -61,13 +113,19 @@ public interface ClassRegistrationsRepository extends JpaRepository<ClassRegistr
         JOIN classes c_other ON c_other.id = r_other.class_id
         WHERE r_src.class_id = :classId
           AND c_other.day_of_week = :dayOfWeek
-          AND STR_TO_DATE(SUBSTRING_INDEX(c_other.time_slot, '-', 1), '%H:%i')
-                < STR_TO_DATE(:end,  '%H:%i')
-          AND STR_TO_DATE(:start, '%H:%i')
-                < STR_TO_DATE(SUBSTRING_INDEX(c_other.time_slot, '-', -1), '%H:%i')
+          AND c_other.start_minute < :endMinute
+          AND :startMinute < c_other.end_minute
         """, nativeQuery = true)
+    boolean existsConflictWhenReschedule(Long classId, Integer dayOfWeek, int startMinute, int endMinute);
 
-    boolean existsConflictWhenReschedule(Long classId, Integer dayOfWeek, String start, String end);
+    // Trùng lịch kiểm tra trên DB (đường ghi, sau khi khoá học sinh); ignoreClassId = lớp không tính (lớp đích / lớp nguồn)
+    @Query("""
+        SELECT CASE WHEN COUNT(r) > 0 THEN TRUE ELSE FALSE END
+        FROM ClassRegistrationEntity r JOIN r.clazz c
+        WHERE r.student.id = :studentId AND c.id <> :ignoreClassId
+          AND c.dayOfWeek = :dayOfWeek AND c.startMinute < :endMinute AND :startMinute < c.endMinute
+    """)
+    boolean existsScheduleConflict(Long studentId, Integer dayOfWeek, int startMinute, int endMinute, Long ignoreClassId);
 
     // lấy danh sách lớp của một học sinh
     @Query("""
@@ -76,4 +134,23 @@ public interface ClassRegistrationsRepository extends JpaRepository<ClassRegistr
         WHERE r.student.id = :studentId
     """)
     List<ClassesEntity> findClassesByStudentId(Long studentId);
-}
\ No newline at end of file
+
+    // lịch (ngày/giờ) của các lớp mà nhóm học sinh đang học – 1 query cho cả lô
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.StudentClassSlot(
+            r.student.id, c.id, c.dayOfWeek, c.startMinute, c.endMinute)
+        FROM ClassRegistrationEntity r
+        JOIN r.clazz c
+        WHERE r.student.id IN :studentIds
+    """)
+    List<StudentClassSlot> findSlotsByStudentIds(Collection<Long> studentIds);
+
+    // Chuyển lớp tại chỗ: đổi class_id của đúng dòng đăng ký (uk_class_student chặn trùng lớp đích)
+    @Modifying
+    @Query(value = """
+        UPDATE class_registrations
+        SET class_id = :targetClassId, version = version + 1, updated_at = :now
+        WHERE class_id = :classId AND student_id = :studentId
+    """, nativeQuery = true)
+    int moveToClass(Long classId, Long studentId, Long targetClassId, Instant now);
+}
@@ -0,0 +1,37 @@
+package com.teenup.contest.repository;
+
+import com.teenup.contest.entity.ClassWaitlistEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ClassWaitlistRepository extends JpaRepository<ClassWaitlistEntity, Long> {
+
+    Optional<ClassWaitlistEntity> findByClazzIdAndStudentId(Long classId, Long studentId);
+
+    // người kế tiếp trong hàng chờ của lớp sau vị trí afterId (FIFO theo id; afterId = 0 → đầu hàng)
+    Optional<ClassWaitlistEntity> findFirstByClazzIdAndIdGreaterThanOrderByIdAsc(Long classId, Long afterId);
+
+    @Query("""
+        SELECT w FROM ClassWaitlistEntity w
+        JOIN FETCH w.student s
+        WHERE w.clazz.id = :classId
+        ORDER BY w.id
+    """)
+    List<ClassWaitlistEntity> findAllByClassIdWithStudent(Long classId);
+
+    // vị trí trong hàng chờ (1 = đầu hàng)
+    @Query("SELECT COUNT(w) FROM ClassWaitlistEntity w WHERE w.clazz.id = :classId AND w.id <= :entryId")
+    long positionOf(Long classId, Long entryId);
+
+    @Modifying
+    @Query("DELETE FROM ClassWaitlistEntity w WHERE w.clazz.id = :classId")
+    int deleteByClassId(Long classId);
+
+    @Modifying
+    @Query("DELETE FROM ClassWaitlistEntity w WHERE w.student.id = :studentId")
+    int deleteByStudentId(Long studentId);
+}
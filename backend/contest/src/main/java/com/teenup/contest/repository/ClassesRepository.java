@@ -1,15 +1,36 @@
 package com.teenup.contest.repository;
 
 
+import com.teenup.contest.dto.response.ClassResponse;
 import com.teenup.contest.entity.ClassesEntity;
+import com.teenup.contest.repository.projection.CatalogEntry;
+import com.teenup.contest.repository.projection.ClassRosterRow;
+import com.teenup.contest.repository.projection.VersionStamp;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ClassesRepository extends JpaRepository<ClassesEntity, Long> {
     List<ClassesEntity> findByDayOfWeek(Integer dayOfWeek);
 
+    // Trang lớp (keyset theo id) – bước 1 của expand=registrations, roster nạp riêng bằng 1 query IN
+    @Query("""
+        select new com.teenup.contest.dto.response.ClassResponse(
+            c.id, c.name, c.subject, c.dayOfWeek, c.timeSlot, c.teacherName, c.maxStudents, c.createdAt, c.updatedAt)
+        from ClassesEntity c
+        where (:day is null or c.dayOfWeek = :day) and c.id > :afterId
+        order by c.id
+    """)
+    List<ClassResponse> findResponsePageAfter(Integer day, Long afterId, Limit limit);
+
     // Lấy class + registrations + students (1 query)
     @Query("""
         select distinct c from ClassesEntity c
@@ -27,12 +48,117 @@ public interface ClassesRepository extends JpaRepository<ClassesEntity, Long> {
     """)
     List<ClassesEntity> findAllWithStudents();
 
-    // MỚI: lấy lớp THEO NGÀY + students (dùng cho expand=registrations & day)
+    // Dò phiên bản cho ETag: lớp + danh sách học sinh (đăng ký / huỷ / chuyển / sửa học sinh đều làm đổi)
     @Query("""
-        select distinct c from ClassesEntity c
-        left join fetch c.registrations r
-        left join fetch r.student s
+        select new com.teenup.contest.repository.projection.VersionStamp(
+            c.version, count(r), coalesce(sum(r.id), 0), coalesce(sum(s.version), 0))
+        from ClassesEntity c
+        left join c.registrations r
+        left join r.student s
+        where c.id = :classId
+        group by c.id, c.version
+    """)
+    java.util.Optional<VersionStamp> stampWithRosterById(Long classId);
+
+    // Export: lớp + học sinh dạng dòng phẳng, đọc tuần tự (MySQL streaming: fetch size = Integer.MIN_VALUE)
+    // Không hydrate entity → persistence context không phình theo số lớp
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        select new com.teenup.contest.repository.projection.ClassRosterRow(
+            c.id, c.name, c.subject, c.dayOfWeek, c.timeSlot, c.teacherName, c.maxStudents,
+            c.createdAt, c.updatedAt, s.id, s.name, s.currentGrade)
+        from ClassesEntity c
+        left join c.registrations r
+        left join r.student s
         where (:day is null or c.dayOfWeek = :day)
+        order by c.id, s.id
+    """)
+    Stream<ClassRosterRow> streamRosterRows(Integer day);
+
+    // Toàn bộ danh mục lớp (dựng snapshot thời khoá biểu trong bộ nhớ, không hydrate entity)
+    @Query("""
+        select new com.teenup.contest.repository.projection.CatalogEntry(
+            c.id, c.name, c.subject, c.dayOfWeek, c.timeSlot, c.teacherName, c.maxStudents,
+            c.createdAt, c.updatedAt, c.startMinute, c.endMinute, c.version)
+        from ClassesEntity c
     """)
-    List<ClassesEntity> findAllWithStudentsByDay(Integer day);
+    List<CatalogEntry> findCatalog();
+
+    // Trong các lớp cho trước, lớp nào còn chỗ (1 query cho cả danh sách)
+    @Query("""
+        select new com.teenup.contest.dto.response.ClassResponse(
+            c.id, c.name, c.subject, c.dayOfWeek, c.timeSlot, c.teacherName, c.maxStudents, c.createdAt, c.updatedAt)
+        from ClassesEntity c
+        where c.id in :ids and c.registeredCount < c.maxStudents
+        order by c.dayOfWeek, c.startMinute, c.id
+    """)
+    List<ClassResponse> findWithFreeSeatsByIdIn(Collection<Long> ids);
+
+    // Giữ 1 chỗ: chỉ tăng khi còn chỗ, 1 câu UPDATE (khoá dòng đến khi commit) → 0 = lớp đầy
+    @Modifying
+    @Query(value = """
+        UPDATE classes SET registered_count = registered_count + 1
+        WHERE id = :classId AND registered_count < max_students
+    """, nativeQuery = true)
+    int reserveSeat(Long classId);
+
+    // Khoá dòng lớp đến hết transaction và đọc số chỗ còn trống (đăng ký hàng loạt giữ min(n, còn trống)); null = không có lớp
+    @Query(value = "SELECT max_students - registered_count FROM classes WHERE id = :classId FOR UPDATE", nativeQuery = true)
+    Integer lockFreeSeats(Long classId);
+
+    // Giữ nhiều chỗ cùng lúc (đăng ký hàng loạt): hoặc đủ cả `seats` chỗ, hoặc 0
+    @Modifying
+    @Query(value = """
+        UPDATE classes SET registered_count = registered_count + :seats
+        WHERE id = :classId AND registered_count + :seats <= max_students
+    """, nativeQuery = true)
+    int reserveSeats(Long classId, int seats);
+
+    // Giảm sĩ số tối đa: chỉ khi số chỗ đã giữ vẫn vừa, cùng 1 câu UPDATE với reserveSeat nên không chen được → 0 = quá nhỏ
+    @Modifying
+    @Query(value = """
+        UPDATE classes SET max_students = :maxStudents
+        WHERE id = :classId AND registered_count <= :maxStudents
+    """, nativeQuery = true)
+    int lowerCapacity(Long classId, int maxStudents);
+
+    @Query(value = "SELECT registered_count FROM classes WHERE id = :classId", nativeQuery = true)
+    Integer findRegisteredCount(Long classId);
+
+    @Modifying
+    @Query(value = """
+        UPDATE classes SET registered_count = registered_count - 1
+        WHERE id = :classId AND registered_count > 0
+    """, nativeQuery = true)
+    int releaseSeat(Long classId);
+
+    // Lớp có registered_count lệch với số dòng class_registrations (backfill / tự sửa lệch)
+    @Query(value = """
+        SELECT c.id FROM classes c
+        WHERE c.registered_count <> (SELECT COUNT(*) FROM class_registrations r WHERE r.class_id = c.id)
+    """, nativeQuery = true)
+    List<Long> findDriftedRegisteredCountIds();
+
+    // Đồng bộ lại registered_count cho các lớp cho trước, chỉ ghi dòng còn lệch
+    @Modifying
+    @Query(value = """
+        UPDATE classes c
+        SET c.registered_count = (SELECT COUNT(*) FROM class_registrations r WHERE r.class_id = c.id)
+        WHERE c.id IN :ids
+          AND c.registered_count <> (SELECT COUNT(*) FROM class_registrations r WHERE r.class_id = c.id)
+    """, nativeQuery = true)
+    int recountRegistrations(Collection<Long> ids);
+
+    // Backfill start/end minute cho dữ liệu có từ trước khi thêm cột ("HH:mm-HH:mm")
+    @Modifying
+    @Query(value = """
+        UPDATE classes
+        SET start_minute = CAST(SUBSTRING(time_slot, 1, 2) AS UNSIGNED) * 60 + CAST(SUBSTRING(time_slot, 4, 2) AS UNSIGNED),
+            end_minute   = CAST(SUBSTRING(time_slot, 7, 2) AS UNSIGNED) * 60 + CAST(SUBSTRING(time_slot, 10, 2) AS UNSIGNED)
+        WHERE start_minute IS NULL OR end_minute IS NULL
+    """, nativeQuery = true)
+    int backfillSlotMinutes();
 }
@@ -0,0 +1,54 @@
+package com.teenup.contest.repository;
+
+import com.teenup.contest.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyKeysRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+    // Giành key: 1 = lần đầu, 0 = key đã tồn tại (đang xử lý hoặc đã xong)
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT IGNORE INTO idempotency_keys (idem_key, completed, created_at)
+        VALUES (:key, FALSE, :now)
+    """, nativeQuery = true)
+    int claim(String key, Instant now);
+
+    // Key chưa xong mà đã giữ quá lease (node xử lý chết giữa chừng) → giành lại: 1 = giành được.
+    // created_at là mốc giành key, dùng luôn làm "token" cho complete / release bên dưới
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE IdempotencyKeyEntity k SET k.createdAt = :now
+        WHERE k.key = :key AND k.completed = FALSE AND k.createdAt < :staleBefore
+    """)
+    int reclaimStale(String key, Instant now, Instant staleBefore);
+
+    // Chỉ ghi kết quả nếu key vẫn do lượt giành lúc claimedAt giữ (chưa bị node khác giành lại)
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE IdempotencyKeyEntity k SET k.completed = TRUE, k.responseBody = :body
+        WHERE k.key = :key AND k.createdAt = :claimedAt
+    """)
+    int complete(String key, String body, Instant claimedAt);
+
+    // Lần đầu lỗi → bỏ key (chỉ khi vẫn do lượt này giữ) để client gửi lại được
+    @Transactional
+    @Modifying
+    @Query("""
+        DELETE FROM IdempotencyKeyEntity k
+        WHERE k.key = :key AND k.createdAt = :claimedAt AND k.completed = FALSE
+    """)
+    int release(String key, Instant claimedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(Instant before);
+}
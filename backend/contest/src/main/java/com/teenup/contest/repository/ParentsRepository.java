@@ -1,10 +1,14 @@
 package com.teenup.contest.repository;
 
+import com.teenup.contest.dto.response.ParentResponse;
 import com.teenup.contest.entity.ParentsEntity;
+import com.teenup.contest.repository.projection.VersionStamp;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ParentsRepository extends JpaRepository<ParentsEntity, Long> {
@@ -13,6 +17,27 @@ public interface ParentsRepository extends JpaRepository<ParentsEntity, Long> {
     @Query("SELECT DISTINCT p FROM ParentsEntity p LEFT JOIN FETCH p.students")
     List<ParentsEntity> findAllWithStudents();
 
+    // Dò phiên bản cho ETag (không đọc dữ liệu)
+    @Query("SELECT p.version FROM ParentsEntity p WHERE p.id = :id")
+    java.util.Optional<Long> findVersionById(Long id);
+
+    @Query("""
+        select new com.teenup.contest.repository.projection.VersionStamp(
+            coalesce(max(p.version), 0), count(p), coalesce(sum(p.id), 0), coalesce(sum(p.version), 0))
+        from ParentsEntity p
+    """)
+    VersionStamp stampAll();
+
+    // Đọc thẳng ra DTO (nạp index tìm kiếm)
+    @Query("SELECT new com.teenup.contest.dto.response.ParentResponse(p.id, p.name, p.phone, p.email, p.createdAt, p.updatedAt) FROM ParentsEntity p")
+    List<ParentResponse> findAllResponses();
+
+    @Query("SELECT new com.teenup.contest.dto.response.ParentResponse(p.id, p.name, p.phone, p.email, p.createdAt, p.updatedAt) FROM ParentsEntity p WHERE p.id IN :ids")
+    List<ParentResponse> findResponsesByIdIn(Collection<Long> ids);
+
+    // Phân trang keyset: các dòng sau id cho trước
+    List<ParentsEntity> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
     @Query("SELECT p FROM ParentsEntity p LEFT JOIN FETCH p.students WHERE p.id = :id")
     java.util.Optional<ParentsEntity> findByIdWithStudents(@Param("id") Long id);
 }
@@ -0,0 +1,14 @@
+package com.teenup.contest.repository;
+
+import com.teenup.contest.entity.UsageReason;
+
+import java.util.List;
+
+/**
+ * Ghi sổ dùng buổi hàng loạt bằng JDBC batch (IDENTITY id khiến Hibernate không batch INSERT được).
+ * Chỉ gọi qua SessionUsageLedger, sau khi đã khoá dòng subscriptions của các gói.
+ */
+public interface SessionUsagesBatchRepository {
+
+    void batchAppend(List<Long> subscriptionIds, int delta, UsageReason reason);
+}
@@ -0,0 +1,29 @@
+package com.teenup.contest.repository;
+
+import com.teenup.contest.entity.UsageReason;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class SessionUsagesBatchRepositoryImpl implements SessionUsagesBatchRepository {
+
+    private final JdbcTemplate jdbc;
+
+    @Override
+    public void batchAppend(List<Long> subscriptionIds, int delta, UsageReason reason) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbc.batchUpdate("""
+                INSERT INTO session_usages (subscription_id, created_at, delta, reason)
+                VALUES (?, ?, ?, ?)
+                """, subscriptionIds, subscriptionIds.size(), (ps, subscriptionId) -> {
+            ps.setLong(1, subscriptionId);
+            ps.setTimestamp(2, now);
+            ps.setInt(3, delta);
+            ps.setString(4, reason.name());
+        });
+    }
+}
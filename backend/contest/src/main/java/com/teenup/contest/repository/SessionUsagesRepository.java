@@ -0,0 +1,50 @@
+package com.teenup.contest.repository;
+
+import com.teenup.contest.entity.SessionUsageEntity;
+import com.teenup.contest.repository.projection.UsageTail;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SessionUsagesRepository extends JpaRepository<SessionUsageEntity, Long>,
+        SessionUsagesBatchRepository {
+
+    // Gói còn dòng sổ chưa gộp (index idx_usage_pending)
+    @Query("""
+        SELECT DISTINCT u.subscription.id FROM SessionUsageEntity u
+        WHERE u.compacted = false
+        ORDER BY u.subscription.id
+    """)
+    List<Long> findPendingSubscriptionIds(Limit limit);
+
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.UsageTail(u.subscription.id, sum(u.delta))
+        FROM SessionUsageEntity u
+        WHERE u.subscription.id IN :subscriptionIds AND u.compacted = false
+        GROUP BY u.subscription.id
+    """)
+    List<UsageTail> findTails(Collection<Long> subscriptionIds);
+
+    @Modifying
+    @Query("""
+        UPDATE SessionUsageEntity u SET u.compacted = true
+        WHERE u.subscription.id IN :subscriptionIds AND u.compacted = false
+    """)
+    int markCompacted(Collection<Long> subscriptionIds);
+
+    @Modifying
+    @Query("DELETE FROM SessionUsageEntity u WHERE u.subscription.id = :subscriptionId")
+    int deleteBySubscriptionId(Long subscriptionId);
+
+    // Xoá học sinh: gói của học sinh bị xoá theo cascade, dòng sổ phải xoá trước (fk_usage_sub)
+    @Modifying
+    @Query("""
+        DELETE FROM SessionUsageEntity u
+        WHERE u.subscription.id IN (SELECT s.id FROM SubscriptionsEntity s WHERE s.student.id = :studentId)
+    """)
+    int deleteByStudentId(Long studentId);
+}
@@ -1,8 +1,14 @@
 package com.teenup.contest.repository;
 
+import com.teenup.contest.dto.response.ParentStudentItem;
+import com.teenup.contest.dto.response.StudentResponse;
 import com.teenup.contest.entity.ParentsEntity;
 import com.teenup.contest.entity.StudentsEntity;
+import com.teenup.contest.repository.projection.VersionStamp;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
@@ -40,4 +46,65 @@ public interface StudentsRepository extends JpaRepository<StudentsEntity, Long>
 
     @Query("SELECT s FROM StudentsEntity s JOIN FETCH s.parent p WHERE p.id = :parentId")
     List<StudentsEntity> findAllByParentId(Long parentId);
+
+    // Học sinh của 1 phụ huynh, đọc thẳng ra DTO (dashboard)
+    @Query("""
+        SELECT new com.teenup.contest.dto.response.ParentStudentItem(s.id, s.name, s.dob, s.gender, s.currentGrade)
+        FROM StudentsEntity s
+        WHERE s.parent.id = :parentId
+        ORDER BY s.id
+    """)
+    List<ParentStudentItem> findItemsByParentId(Long parentId);
+
+    // Phân trang keyset, đọc thẳng ra StudentResponse (parent lấy bằng join, không N+1)
+    @Query("""
+        SELECT new com.teenup.contest.dto.response.StudentResponse(
+            s.id, s.name, s.dob, s.gender, s.currentGrade,
+            p.id, p.name, p.phone, p.email, s.createdAt, s.updatedAt)
+        FROM StudentsEntity s LEFT JOIN s.parent p
+        WHERE s.id > :afterId
+        ORDER BY s.id
+    """)
+    List<StudentResponse> findPageAfter(Long afterId, Limit limit);
+
+    // Như findPageAfter nhưng không lấy parent
+    @Query("""
+        SELECT new com.teenup.contest.dto.response.StudentResponse(
+            s.id, s.name, s.dob, s.gender, s.currentGrade, s.createdAt, s.updatedAt)
+        FROM StudentsEntity s
+        WHERE s.id > :afterId
+        ORDER BY s.id
+    """)
+    List<StudentResponse> findPageAfterWithoutParent(Long afterId, Limit limit);
+
+    @Query("""
+        SELECT new com.teenup.contest.dto.response.StudentResponse(
+            s.id, s.name, s.dob, s.gender, s.currentGrade,
+            p.id, p.name, p.phone, p.email, s.createdAt, s.updatedAt)
+        FROM StudentsEntity s LEFT JOIN s.parent p
+        WHERE s.id IN :ids
+    """)
+    List<StudentResponse> findResponsesByIdIn(Collection<Long> ids);
+
+    // Dò phiên bản cho ETag: học sinh + phụ huynh (StudentResponse có kèm parent)
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.VersionStamp(
+            s.version, count(p), coalesce(sum(p.id), 0), coalesce(sum(p.version), 0))
+        FROM StudentsEntity s LEFT JOIN s.parent p
+        WHERE s.id = :id
+        GROUP BY s.id, s.version
+    """)
+    java.util.Optional<VersionStamp> stampById(Long id);
+
+    @Query("""
+        select new com.teenup.contest.repository.projection.VersionStamp(
+            coalesce(max(s.version), 0), count(s), coalesce(sum(s.id), 0), coalesce(sum(s.version), 0))
+        from StudentsEntity s
+    """)
+    VersionStamp stampAll();
+
+    // Khoá dòng học sinh (id tăng dần): đăng ký / chuyển lớp của cùng 1 học sinh chạy tuần tự
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s.id FROM StudentsEntity s WHERE s.id IN :ids ORDER BY s.id")
+    List<Long> lockForSchedule(Collection<Long> ids);
 }
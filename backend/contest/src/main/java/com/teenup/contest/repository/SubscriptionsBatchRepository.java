@@ -0,0 +1,12 @@
+package com.teenup.contest.repository;
+
+import com.teenup.contest.repository.projection.UsageTail;
+
+import java.util.List;
+
+/** Thao tác ghi hàng loạt bằng JDBC batch trên subscriptions. */
+public interface SubscriptionsBatchRepository {
+
+    /** Cộng phần sổ chưa gộp vào snapshot used_sessions (caller đã khoá các gói và bật cờ compacted cùng transaction). */
+    void batchCompact(List<UsageTail> tails);
+}
@@ -0,0 +1,23 @@
+package com.teenup.contest.repository;
+
+import com.teenup.contest.repository.projection.UsageTail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class SubscriptionsBatchRepositoryImpl implements SubscriptionsBatchRepository {
+
+    private final JdbcTemplate jdbc;
+
+    // Không tăng version: số buổi hiện tại (snapshot + phần chưa gộp) không đổi → ETag giữ nguyên
+    @Override
+    public void batchCompact(List<UsageTail> tails) {
+        jdbc.batchUpdate("UPDATE subscriptions SET used_sessions = used_sessions + ? WHERE id = ?",
+                tails, tails.size(), (ps, t) -> {
+                    ps.setLong(1, t.delta());
+                    ps.setLong(2, t.subscriptionId());
+                });
+    }
+}
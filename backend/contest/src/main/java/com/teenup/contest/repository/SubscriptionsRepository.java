@@ -1,22 +1,160 @@
 package com.teenup.contest.repository;
 
+import com.teenup.contest.dto.response.SubscriptionResponse;
+import com.teenup.contest.entity.SubscriptionStatus;
 import com.teenup.contest.entity.SubscriptionsEntity;
+import com.teenup.contest.repository.projection.SubscriptionBalance;
+import com.teenup.contest.repository.projection.SubscriptionTerms;
+import com.teenup.contest.repository.projection.VersionStamp;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
-public interface SubscriptionsRepository extends JpaRepository<SubscriptionsEntity, Long> {
+public interface SubscriptionsRepository extends JpaRepository<SubscriptionsEntity, Long>,
+        SubscriptionsBatchRepository {
     List<SubscriptionsEntity> findByStudent_Id(Long studentId);
 
+    @Query("""
+        SELECT new com.teenup.contest.dto.response.SubscriptionResponse(
+            s.id, s.student.id, s.packageName, s.startDate, s.endDate,
+            s.totalSessions, s.usedSessions + s.pendingSessions, s.totalSessions - s.usedSessions - s.pendingSessions,
+            s.createdAt, s.updatedAt)
+        FROM SubscriptionsEntity s
+        WHERE s.id = :id
+    """)
+    java.util.Optional<SubscriptionResponse> findResponseById(Long id);
+
+
+    // Gói hiệu lực vào ngày `day` của nhóm học sinh; gói sắp hết hạn đứng trước (được trừ trước)
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.SubscriptionBalance(
+            s.id, s.student.id, s.startDate, s.endDate, s.totalSessions, s.usedSessions + s.pendingSessions)
+        FROM SubscriptionsEntity s
+        WHERE s.student.id IN :studentIds AND :day BETWEEN s.startDate AND s.endDate
+        ORDER BY s.endDate, s.id
+    """)
+    List<SubscriptionBalance> findBalancesActiveOn(Collection<Long> studentIds, LocalDate day);
+
+    // Khoá dòng gói trước khi ghi sổ dùng buổi (không ghi dòng subscriptions); id tăng dần để không deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s.id FROM SubscriptionsEntity s WHERE s.id IN :ids ORDER BY s.id")
+    List<Long> lockForUsage(Collection<Long> ids);
+
+    // Số dư hiện tại của các gói (đọc sau lockForUsage, trong transaction READ_COMMITTED)
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.SubscriptionBalance(
+            s.id, s.student.id, s.startDate, s.endDate, s.totalSessions, s.usedSessions + s.pendingSessions)
+        FROM SubscriptionsEntity s
+        WHERE s.id IN :ids
+    """)
+    List<SubscriptionBalance> findBalancesByIds(Collection<Long> ids);
+
+    // Dò phiên bản cho ETag (không đọc dữ liệu): version của gói + các dòng sổ dùng buổi (check-in không đổi version)
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.VersionStamp(
+            s.version, count(u), coalesce(sum(u.id), 0), 0L)
+        FROM SubscriptionsEntity s LEFT JOIN SessionUsageEntity u ON u.subscription = s
+        WHERE s.id = :id
+        GROUP BY s.id, s.version
+    """)
+    java.util.Optional<VersionStamp> stampById(Long id);
+
+    @Query("""
+        select new com.teenup.contest.repository.projection.VersionStamp(
+            (select coalesce(max(u.id), 0) from SessionUsageEntity u
+             where :studentId is null or u.subscription.student.id = :studentId),
+            count(s), coalesce(sum(s.id), 0), coalesce(sum(s.version), 0))
+        from SubscriptionsEntity s
+        where (:studentId is null or s.student.id = :studentId)
+    """)
+    VersionStamp stampByStudent(Long studentId);
+
+    // Phân trang keyset, lọc theo học sinh nếu có
+    @Query("""
+        SELECT s FROM SubscriptionsEntity s
+        WHERE (:studentId IS NULL OR s.student.id = :studentId) AND s.id > :afterId
+        ORDER BY s.id
+    """)
+    List<SubscriptionsEntity> findPageAfter(Long studentId, Long afterId, Limit limit);
+
+    // Gói học của mọi học sinh thuộc 1 phụ huynh, đọc thẳng ra DTO (dashboard)
+    @Query("""
+        SELECT new com.teenup.contest.dto.response.SubscriptionResponse(
+            s.id, s.student.id, s.packageName, s.startDate, s.endDate,
+            s.totalSessions, s.usedSessions + s.pendingSessions, s.totalSessions - s.usedSessions - s.pendingSessions,
+            s.createdAt, s.updatedAt)
+        FROM SubscriptionsEntity s
+        WHERE s.student.parent.id = :parentId
+        ORDER BY s.id
+    """)
+    List<SubscriptionResponse> findResponsesByParentId(Long parentId);
+
+    // Gia hạn hàng loạt: hạn + tổng buổi hiện tại của các gói được chọn
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.SubscriptionTerms(
+            s.id, s.startDate, s.endDate, s.totalSessions)
+        FROM SubscriptionsEntity s
+        WHERE s.id IN :ids
+        ORDER BY s.id
+    """)
+    List<SubscriptionTerms> findTermsByIds(Collection<Long> ids);
+
+    @Query("""
+        SELECT new com.teenup.contest.repository.projection.SubscriptionTerms(
+            s.id, s.startDate, s.endDate, s.totalSessions)
+        FROM SubscriptionsEntity s
+        WHERE (:packageName IS NULL OR s.packageName = :packageName)
+          AND (:endDateFrom IS NULL OR s.endDate >= :endDateFrom)
+          AND (:endDateTo IS NULL OR s.endDate <= :endDateTo)
+        ORDER BY s.id
+    """)
+    List<SubscriptionTerms> findTermsByFilter(String packageName, LocalDate endDateFrom, LocalDate endDateTo, Limit limit);
+
+    // 1 UPDATE cho cả nhóm; điều kiện endDate kiểm lại trên dòng hiện tại (có thể đã bị sửa sau bước kiểm tra)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        UPDATE SubscriptionsEntity s
+        SET s.totalSessions = s.totalSessions + :addSessions,
+            s.endDate = COALESCE(:endDate, s.endDate),
+            s.version = s.version + 1,
+            s.updatedAt = :now
+        WHERE s.id IN :ids AND (:endDate IS NULL OR s.endDate <= :endDate)
+    """)
+    int extendAll(Collection<Long> ids, int addSessions, LocalDate endDate, Instant now);
+
+    // Còn hiệu lực / còn buổi = chưa CLOSED (index idx_sub_student_status); trạng thái do job quét cập nhật
     @Query("""
         SELECT CASE WHEN COUNT(s) > 0 THEN TRUE ELSE FALSE END
         FROM SubscriptionsEntity s
         WHERE s.student.id = :studentId
-          AND (
-                (CURRENT_DATE BETWEEN s.startDate AND s.endDate)
-             OR (s.usedSessions < s.totalSessions)
-          )
+          AND s.status <> com.teenup.contest.entity.SubscriptionStatus.CLOSED
     """)
     boolean existsActiveByStudent(Long studentId);
+
+    // Lô id gói chưa CLOSED sau cursor (keyset theo PK) cho job quét trạng thái
+    @Query("""
+        SELECT s.id FROM SubscriptionsEntity s
+        WHERE s.id > :afterId AND s.status <> com.teenup.contest.entity.SubscriptionStatus.CLOSED
+        ORDER BY s.id
+    """)
+    List<Long> findOpenIdsAfter(Long afterId, Limit limit);
+
+    // Đặt status = :target cho các gói trong lô có (hết hạn, hết buổi) khớp với target (cùng quy tắc SubscriptionStatus.of).
+    // Tính ngay trong UPDATE trên dòng hiện tại → không ghi đè kết quả của reset / extend vừa commit.
+    @Modifying
+    @Query("""
+        UPDATE SubscriptionsEntity s SET s.status = :target
+        WHERE s.id IN :ids AND s.status <> :target
+          AND (CASE WHEN s.endDate < :today THEN TRUE ELSE FALSE END) = :expired
+          AND (CASE WHEN s.usedSessions + s.pendingSessions >= s.totalSessions THEN TRUE ELSE FALSE END) = :exhausted
+    """)
+    int updateStatus(List<Long> ids, LocalDate today, SubscriptionStatus target, boolean expired, boolean exhausted);
 }
@@ -0,0 +1,25 @@
+package com.teenup.contest.repository.projection;
+
+import com.teenup.contest.dto.response.ClassResponse;
+
+import java.time.Instant;
+
+/** 1 lớp trong danh mục: dữ liệu trả ra API + phút bắt đầu/kết thúc để sắp xếp / dò trùng lịch. */
+public record CatalogEntry(
+        Long id,
+        String name,
+        String subject,
+        Integer dayOfWeek,
+        String timeSlot,
+        String teacherName,
+        Integer maxStudents,
+        Instant createdAt,
+        Instant updatedAt,
+        Integer startMinute,
+        Integer endMinute,
+        long version
+) {
+    public ClassResponse response() {
+        return new ClassResponse(id, name, subject, dayOfWeek, timeSlot, teacherName, maxStudents, createdAt, updatedAt);
+    }
+}
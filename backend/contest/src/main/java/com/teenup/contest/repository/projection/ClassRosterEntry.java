@@ -0,0 +1,15 @@
+package com.teenup.contest.repository.projection;
+
+import com.teenup.contest.dto.response.RegisteredStudentBrief;
+
+/** 1 học sinh trong roster của 1 lớp (dùng khi nạp roster cho nhiều lớp bằng 1 query IN). */
+public record ClassRosterEntry(
+        Long classId,
+        Long studentId,
+        String name,
+        String currentGrade
+) {
+    public RegisteredStudentBrief brief() {
+        return new RegisteredStudentBrief(studentId, name, currentGrade);
+    }
+}
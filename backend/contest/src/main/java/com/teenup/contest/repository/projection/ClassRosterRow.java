@@ -0,0 +1,23 @@
+package com.teenup.contest.repository.projection;
+
+import java.time.Instant;
+
+/**
+ * 1 dòng (lớp, học sinh) phẳng cho export roster; lớp không có học sinh → studentId = null.
+ * Các dòng cùng lớp đứng liền nhau (ORDER BY c.id) để gom từng lớp khi đọc tuần tự.
+ */
+public record ClassRosterRow(
+        Long classId,
+        String name,
+        String subject,
+        Integer dayOfWeek,
+        String timeSlot,
+        String teacherName,
+        Integer maxStudents,
+        Instant createdAt,
+        Instant updatedAt,
+        Long studentId,
+        String studentName,
+        String currentGrade
+) {
+}
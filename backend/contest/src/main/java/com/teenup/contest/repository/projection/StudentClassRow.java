@@ -0,0 +1,18 @@
+package com.teenup.contest.repository.projection;
+
+import com.teenup.contest.dto.response.StudentClassBrief;
+
+/** 1 lớp mà 1 học sinh đang học (dùng khi nạp lớp cho nhiều học sinh bằng 1 query). */
+public record StudentClassRow(
+        Long studentId,
+        Long classId,
+        String name,
+        String subject,
+        Integer dayOfWeek,
+        String timeSlot,
+        String teacherName
+) {
+    public StudentClassBrief brief() {
+        return new StudentClassBrief(classId, name, subject, dayOfWeek, timeSlot, teacherName);
+    }
+}
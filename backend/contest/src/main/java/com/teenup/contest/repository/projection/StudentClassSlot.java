@@ -0,0 +1,16 @@
+package com.teenup.contest.repository.projection;
+
+import com.teenup.contest.support.TimeSlot;
+
+/** 1 dòng đăng ký: học sinh nào đang học lớp nào, vào ngày/giờ nào (không hydrate entity). */
+public record StudentClassSlot(
+        Long studentId,
+        Long classId,
+        Integer dayOfWeek,
+        Integer startMinute,
+        Integer endMinute
+) {
+    public TimeSlot slot() {
+        return new TimeSlot(startMinute, endMinute);
+    }
+}
@@ -0,0 +1,17 @@
+package com.teenup.contest.repository.projection;
+
+import java.time.LocalDate;
+
+/** Hạn và số buổi hiện tại của 1 gói (chọn gói / kiểm tra khi trừ buổi, không hydrate entity). */
+public record SubscriptionBalance(
+        Long id,
+        Long studentId,
+        LocalDate startDate,
+        LocalDate endDate,
+        Integer totalSessions,
+        Integer usedSessions
+) {
+    public int remaining() {
+        return totalSessions - usedSessions;
+    }
+}
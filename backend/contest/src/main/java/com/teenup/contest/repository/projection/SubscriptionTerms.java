@@ -0,0 +1,11 @@
+package com.teenup.contest.repository.projection;
+
+import java.time.LocalDate;
+
+/** Hạn + tổng số buổi của 1 gói (kiểm tra / kết quả gia hạn hàng loạt, không hydrate entity). */
+public record SubscriptionTerms(
+        Long id,
+        LocalDate startDate,
+        LocalDate endDate,
+        Integer totalSessions
+) {}
@@ -0,0 +1,7 @@
+package com.teenup.contest.repository.projection;
+
+/** Tổng delta các dòng sổ dùng buổi chưa gộp của 1 gói. */
+public record UsageTail(
+        Long subscriptionId,
+        Long delta
+) {}
@@ -0,0 +1,16 @@
+package com.teenup.contest.repository.projection;
+
+/**
+ * Kết quả query "dò phiên bản" cho ETag: version của bản ghi chính + tổng hợp trên tập dòng liên quan
+ * (số dòng, tổng id, tổng version). Thêm / xoá / sửa bất kỳ dòng nào đều làm đổi ít nhất 1 thành phần.
+ */
+public record VersionStamp(
+        Long version,
+        Long rows,
+        Long idSum,
+        Long versionSum
+) {
+    public String tag() {
+        return version + "-" + rows + "-" + idSum + "-" + versionSum;
+    }
+}
@@ -0,0 +1,94 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.request.AttendanceRequest;
+import com.teenup.contest.dto.response.AttendanceItemResult;
+import com.teenup.contest.dto.response.AttendanceResponse;
+import com.teenup.contest.entity.UsageReason;
+import com.teenup.contest.exception.ClassNotFoundException;
+import com.teenup.contest.exception.ErrorCode;
+import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.ClassesRepository;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.repository.projection.SubscriptionBalance;
+import com.teenup.contest.support.RetryOnConflict;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Điểm danh cả lớp: mỗi học sinh có mặt trừ 1 buổi vào gói hiệu lực của mình.
+ * Cố định 5 câu SQL + 1 JDBC batch INSERT vào sổ dùng buổi dù lớp có bao nhiêu học sinh, trong 1 transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class AttendanceService {
+
+    public static final String CONSUMED = "CONSUMED";
+
+    private final ClassesRepository classRepo;
+    private final ClassRegistrationsRepository regRepo;
+    private final SubscriptionsRepository subsRepo;
+    private final SessionUsageLedger ledger;
+
+    @RetryOnConflict
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public AttendanceResponse checkIn(Long classId, AttendanceRequest req) {
+        if (!classRepo.existsById(classId)) {
+            throw new ClassNotFoundException(classId);
+        }
+        LocalDate day = req.date() != null ? req.date() : LocalDate.now();
+        List<Long> studentIds = req.studentIds().stream().distinct().toList();
+
+        // 1) Ai thật sự học lớp này, và gói hiệu lực vào ngày đó của họ (2 query)
+        Set<Long> registered = new HashSet<>(regRepo.findRegisteredStudentIds(classId, studentIds));
+        Map<Long, List<SubscriptionBalance>> balances = new HashMap<>();
+        if (!registered.isEmpty()) {
+            for (SubscriptionBalance b : subsRepo.findBalancesActiveOn(registered, day)) {
+                balances.computeIfAbsent(b.studentId(), k -> new ArrayList<>()).add(b);
+            }
+        }
+
+        // 2) Khoá các gói ứng viên (1 câu, id tăng dần) rồi đọc lại số dư đã commit; chọn gói hết hạn sớm nhất còn buổi
+        Map<Long, SubscriptionBalance> locked = ledger.lock(
+                balances.values().stream().flatMap(List::stream).map(SubscriptionBalance::id).toList());
+        List<AttendanceItemResult> items = new ArrayList<>(studentIds.size());
+        List<Long> consumedSubs = new ArrayList<>();
+        for (Long studentId : studentIds) {
+            if (!registered.contains(studentId)) {
+                items.add(rejected(studentId, ErrorCode.REGISTRATION_NOT_FOUND));
+                continue;
+            }
+            List<SubscriptionBalance> active = balances.getOrDefault(studentId, List.of());
+            AttendanceItemResult result = rejected(studentId,
+                    active.isEmpty() ? ErrorCode.NO_ACTIVE_SUBSCRIPTION : ErrorCode.NO_REMAINING_SESSIONS);
+            for (SubscriptionBalance candidate : active) {
+                SubscriptionBalance b = locked.get(candidate.id());
+                if (b != null && SessionUsageLedger.check(b, day, 0) == SessionUsageLedger.Outcome.CONSUMED) {
+                    consumedSubs.add(b.id());
+                    result = new AttendanceItemResult(studentId, CONSUMED, b.id(), b.remaining() - 1, null);
+                    break;
+                }
+            }
+            items.add(result);
+        }
+
+        // 3) Ghi sổ cho cả lớp bằng 1 JDBC batch INSERT
+        ledger.append(consumedSubs, UsageReason.ATTENDANCE);
+
+        int consumed = consumedSubs.size();
+        return new AttendanceResponse(classId, day, items.size(), consumed, items.size() - consumed, items);
+    }
+
+    private static AttendanceItemResult rejected(Long studentId, ErrorCode ec) {
+        return new AttendanceItemResult(studentId, ec.code(), null, null, ec.defaultMessage());
+    }
+}
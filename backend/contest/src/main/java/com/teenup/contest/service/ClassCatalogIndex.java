@@ -0,0 +1,194 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.response.ClassResponse;
+import com.teenup.contest.repository.ClassesRepository;
+import com.teenup.contest.repository.projection.CatalogEntry;
+import com.teenup.contest.repository.projection.VersionStamp;
+import com.teenup.contest.support.AfterCommit;
+import com.teenup.contest.support.WeeklyOccupancy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Snapshot bất biến của danh mục lớp (thời khoá biểu tuần): lớp nhóm theo ngày, sắp theo giờ bắt đầu,
+ * kèm mảng khoảng [start, end) mỗi ngày để dò trùng lịch.
+ * Đọc không khoá; dựng lại copy-on-write sau khi create/update/delete lớp commit.
+ *
+ * Snapshot đi cùng số thay đổi trong 1 cặp (AtomicReference): sau commit thay cặp bằng (n + 1, null),
+ * bản dựng chỉ được công bố bằng compareAndSet đúng cặp đã thấy trước khi đọc DB → không ghi đè
+ * được thay đổi commit trong lúc dựng. Đọc DB trong transaction riêng (READ COMMITTED) để không dùng
+ * snapshot REPEATABLE READ cũ của request đang gọi.
+ */
+@Component
+public class ClassCatalogIndex {
+
+    private static final Comparator<CatalogEntry> BY_TIME = Comparator
+            .comparing(CatalogEntry::dayOfWeek, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(CatalogEntry::startMinute, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(CatalogEntry::endMinute, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(CatalogEntry::id);
+
+    private final ClassesRepository classesRepo;
+    private final TaskExecutor executor;
+    private final TransactionTemplate loadTx;
+
+    // (số lần danh mục đổi, snapshot tương ứng hoặc null nếu chưa dựng)
+    private record Published(long modCount, Snapshot snapshot) {}
+
+    private final AtomicReference<Published> state = new AtomicReference<>(new Published(0, null));
+
+    public ClassCatalogIndex(ClassesRepository classesRepo,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor executor,
+                             PlatformTransactionManager txManager) {
+        this.classesRepo = classesRepo;
+        this.executor = executor;
+        this.loadTx = new TransactionTemplate(txManager);
+        this.loadTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.loadTx.setReadOnly(true);
+    }
+
+    /** Lớp của 1 ngày (day = null → cả tuần), sắp theo ngày rồi giờ bắt đầu. */
+    public List<ClassResponse> classes(Integer day) {
+        Snapshot s = current();
+        return day == null ? s.all : s.byDay.get(day);
+    }
+
+    /** ETag của snapshot theo ngày (day = null → cả tuần): VersionStamp trên các lớp trong snapshot, như các GET khác. */
+    public String etag(Integer day) {
+        Snapshot s = current();
+        return "\"classes-" + (day == null ? "all" : day) + "-" + s.stamps[day == null ? 0 : day].tag() + "\"";
+    }
+
+    /**
+     * Các lớp (theo thứ tự ngày, giờ bắt đầu) không chồng lịch với `occupied` và chưa nằm trong đó.
+     * Mỗi ngày: duyệt các khoảng trống giữa các đoạn bận, tìm nhị phân lớp đầu tiên bắt đầu trong khoảng trống
+     * trên mảng starts đã sắp → lớp bắt đầu trong giờ bận bị bỏ qua mà không xét, không tạo object cho từng lớp.
+     */
+    public List<Long> classesFitting(WeeklyOccupancy occupied) {
+        Snapshot s = current();
+        List<Long> out = new ArrayList<>();
+        for (int day = 1; day <= 7; day++) {
+            DaySlots d = s.slots.get(day);
+            if (d.ids.length == 0) continue;
+            int[] busy = occupied.busyIntervals(day);
+
+            int gapStart = 0;
+            for (int b = 0; b <= busy.length; b += 2) {
+                int gapEnd = b < busy.length ? busy[b] : Integer.MAX_VALUE;
+                for (int i = lowerBound(d.starts, gapStart); i < d.starts.length && d.starts[i] < gapEnd; i++) {
+                    if (d.ends[i] <= gapEnd && !occupied.contains(d.ids[i])) out.add(d.ids[i]);
+                }
+                if (b < busy.length) gapStart = busy[b + 1];
+            }
+        }
+        return out;
+    }
+
+    // vị trí đầu tiên có starts[i] >= key
+    private static int lowerBound(int[] starts, int key) {
+        int lo = 0, hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Lớp được tạo / sửa / xoá → sau khi commit bỏ snapshot cũ và dựng bản mới ở luồng nền
+     * (request đọc đến trước thì tự dựng; rollback thì giữ nguyên).
+     */
+    public void onClassesChanged() {
+        AfterCommit.run(() -> {
+            state.updateAndGet(p -> new Published(p.modCount() + 1, null));
+            executor.execute(this::current);
+        });
+    }
+
+    private Snapshot current() {
+        Snapshot s = state.get().snapshot();
+        return s != null ? s : rebuild();
+    }
+
+    // Dựng tuần tự; compareAndSet thất bại = có thay đổi commit trong lúc đang đọc DB → dựng lại
+    private synchronized Snapshot rebuild() {
+        while (true) {
+            Published seen = state.get();
+            if (seen.snapshot() != null) return seen.snapshot();
+
+            Snapshot loaded = Snapshot.of(loadTx.execute(s -> classesRepo.findCatalog()));
+            if (state.compareAndSet(seen, new Published(seen.modCount(), loaded))) return loaded;
+        }
+    }
+
+    private record DaySlots(long[] ids, int[] starts, int[] ends) {}
+
+    private record Snapshot(List<ClassResponse> all, List<List<ClassResponse>> byDay,
+                            List<DaySlots> slots, VersionStamp[] stamps) {
+
+        static Snapshot of(List<CatalogEntry> catalog) {
+            List<CatalogEntry> sorted = new ArrayList<>(catalog);
+            sorted.sort(BY_TIME);
+
+            List<List<ClassResponse>> byDay = new ArrayList<>();
+            List<List<CatalogEntry>> timed = new ArrayList<>();
+            for (int day = 0; day <= 7; day++) {
+                byDay.add(new ArrayList<>());
+                timed.add(new ArrayList<>());
+            }
+            List<ClassResponse> all = new ArrayList<>(sorted.size());
+            for (CatalogEntry c : sorted) {
+                ClassResponse r = c.response();
+                all.add(r);
+                Integer day = c.dayOfWeek();
+                if (day == null || day < 1 || day > 7) continue;
+                byDay.get(day).add(r);
+                if (c.startMinute() != null && c.endMinute() != null) timed.get(day).add(c);
+            }
+
+            List<DaySlots> slots = new ArrayList<>();
+            VersionStamp[] stamps = new VersionStamp[8];
+            for (int day = 0; day <= 7; day++) {
+                List<CatalogEntry> t = timed.get(day);
+                long[] ids = new long[t.size()];
+                int[] starts = new int[t.size()];
+                int[] ends = new int[t.size()];
+                for (int i = 0; i < t.size(); i++) {
+                    ids[i] = t.get(i).id();
+                    starts[i] = t.get(i).startMinute();
+                    ends[i] = t.get(i).endMinute();
+                }
+                slots.add(new DaySlots(ids, starts, ends));
+                byDay.set(day, List.copyOf(byDay.get(day)));
+            }
+            for (int day = 1; day <= 7; day++) {
+                int d = day;
+                stamps[day] = stamp(sorted.stream().filter(c -> c.dayOfWeek() != null && c.dayOfWeek() == d).toList());
+            }
+            stamps[0] = stamp(sorted);
+            return new Snapshot(List.copyOf(all), List.copyOf(byDay), List.copyOf(slots), stamps);
+        }
+
+        // cùng công thức với các query stamp*: max(version), số dòng, tổng id, tổng version
+        private static VersionStamp stamp(List<CatalogEntry> entries) {
+            long max = 0, idSum = 0, versionSum = 0;
+            for (CatalogEntry c : entries) {
+                max = Math.max(max, c.version());
+                idSum += c.id();
+                versionSum += c.version();
+            }
+            return new VersionStamp(max, (long) entries.size(), idSum, versionSum);
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package com.teenup.contest.service;
 
+import com.teenup.contest.dto.response.ClassResponse;
 import com.teenup.contest.dto.response.ClassWithStudentsResponse;
+import com.teenup.contest.dto.response.CursorPage;
 import com.teenup.contest.dto.response.RegisteredStudentBrief;
 import com.teenup.contest.dto.response.StudentClassBrief;
 import com.teenup.contest.entity.ClassesEntity;
 import com.teenup.contest.entity.StudentsEntity;
+import com.teenup.contest.exception.InvalidDayException;
 import com.teenup.contest.exception.StudentNotFoundException;
 import com.teenup.contest.mapper.ClassReadMapper;
-import com.teenup.contest.mapper.StudentReadMapper;
 import com.teenup.contest.repository.ClassRegistrationsRepository;
 import com.teenup.contest.repository.ClassesRepository;
 import com.teenup.contest.repository.StudentsRepository;
+import com.teenup.contest.repository.projection.ClassRosterEntry;
+import com.teenup.contest.repository.projection.ClassRosterRow;
+import com.teenup.contest.support.KeysetPaging;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,11 +36,16 @@ public class ClassReadService {
     private final ClassRegistrationsRepository regsRepo;
     private final StudentsRepository studentsRepo;
     private final ClassReadMapper classReadMapper;
-    private final StudentReadMapper studentReadMapper;
+    private final ClassRosterCache rosterCache;
+    private final KeysetPaging paging;
 
     /** GET /api/classes/{id} → class + students */
     @Transactional(readOnly = true)
     public ClassWithStudentsResponse getClassWithStudents(Long classId) {
+        return rosterCache.detail(classId, this::loadClassWithStudents);
+    }
+
+    private ClassWithStudentsResponse loadClassWithStudents(Long classId) {
         ClassesEntity c = classesRepo.findByIdWithStudents(classId);
         if (c == null) {
             throw new com.teenup.contest.exception.ClassNotFoundException(classId);
@@ -42,17 +58,80 @@ public class ClassReadService {
         return classReadMapper.toClassWithStudents(c, students);
     }
 
+    /**
+     * GET /api/classes?expand=registrations → lớp kèm học sinh, 2 query cố định:
+     * (1) trang lớp, (2) roster của các lớp đó bằng 1 query IN; ghép trong bộ nhớ (không fetch join nhân dòng).
+     * Không truyền cursor/limit → trả mọi lớp (như trước).
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ClassWithStudentsResponse> listClassesWithStudents(Integer day, String cursor, Integer limit) {
+        return listClassesWithStudents(day, cursor, limit, true);
+    }
+
+    // withStudents = false (fields= không chọn students) → bỏ hẳn bước 2 nạp roster
+    @Transactional(readOnly = true)
+    public CursorPage<ClassWithStudentsResponse> listClassesWithStudents(Integer day, String cursor, Integer limit,
+                                                                         boolean withStudents) {
+        if (day != null && (day < 1 || day > 7)) throw new InvalidDayException(day);
+
+        int size = paging.size(cursor, limit);
+        List<ClassResponse> classes = classesRepo.findResponsePageAfter(day, paging.after(cursor), paging.probe(size));
+        if (classes.isEmpty()) return new CursorPage<>(List.of(), null);
+
+        List<ClassResponse> page = classes.size() > size ? classes.subList(0, size) : classes;
+        Map<Long, List<RegisteredStudentBrief>> rosters = new HashMap<>();
+        if (withStudents) {
+            for (ClassRosterEntry e : regsRepo.findRosterEntriesByClassIds(page.stream().map(ClassResponse::id).toList())) {
+                rosters.computeIfAbsent(e.classId(), k -> new ArrayList<>()).add(e.brief());
+            }
+        }
+        return paging.page(classes, size, ClassResponse::id, c -> new ClassWithStudentsResponse(
+                c.id(), c.name(), c.subject(), c.dayOfWeek(), c.timeSlot(), c.teacherName(), c.maxStudents(),
+                withStudents ? rosters.getOrDefault(c.id(), List.of()) : null, c.createdAt(), c.updatedAt()));
+    }
+
+    /**
+     * Export lớp + học sinh: đọc tuần tự (forward-only) và đẩy từng lớp ra `sink` ngay khi gom xong,
+     * bộ nhớ chỉ giữ 1 lớp tại một thời điểm.
+     */
+    @Transactional(readOnly = true)
+    public void streamClassesWithStudents(Integer day, Consumer<ClassWithStudentsResponse> sink) {
+        if (day != null && (day < 1 || day > 7)) throw new InvalidDayException(day);
+
+        try (Stream<ClassRosterRow> rows = classesRepo.streamRosterRows(day)) {
+            ClassRosterRow head = null;
+            List<RegisteredStudentBrief> students = new ArrayList<>();
+            for (Iterator<ClassRosterRow> it = rows.iterator(); it.hasNext(); ) {
+                ClassRosterRow row = it.next();
+                if (head != null && !head.classId().equals(row.classId())) {
+                    sink.accept(toClassWithStudents(head, students));
+                    students = new ArrayList<>();
+                }
+                head = row;
+                if (row.studentId() != null) {
+                    students.add(new RegisteredStudentBrief(row.studentId(), row.studentName(), row.currentGrade()));
+                }
+            }
+            if (head != null) sink.accept(toClassWithStudents(head, students));
+        }
+    }
+
+    private static ClassWithStudentsResponse toClassWithStudents(ClassRosterRow c, List<RegisteredStudentBrief> students) {
+        return new ClassWithStudentsResponse(c.classId(), c.name(), c.subject(), c.dayOfWeek(), c.timeSlot(),
+                c.teacherName(), c.maxStudents(), students, c.createdAt(), c.updatedAt());
+    }
+
     /** GET /api/classes/{id}/registrations → chỉ danh sách student */
     @Transactional(readOnly = true)
     public List<RegisteredStudentBrief> listStudentsOfClass(Long classId) {
+        return rosterCache.roster(classId, this::loadStudentsOfClass);
+    }
+
+    private List<RegisteredStudentBrief> loadStudentsOfClass(Long classId) {
         // kiểm tra class tồn tại cho đẹp lỗi
         if (!classesRepo.existsById(classId)) throw new com.teenup.contest.exception.ClassNotFoundException(classId);
 
-        return regsRepo.findAllByClazzIdWithStudent(classId).stream()
-                .map(r -> r.getStudent())
-                .distinct()
-                .map(classReadMapper::toStudentBrief)
-                .toList();
+        return regsRepo.findStudentBriefsByClassId(classId);
     }
 
     /** GET /api/students/{id}/classes → các class của 1 student */
@@ -60,10 +139,6 @@ public class ClassReadService {
     public List<StudentClassBrief> listClassesOfStudent(Long studentId) {
         if (!studentsRepo.existsById(studentId)) throw new StudentNotFoundException(studentId);
 
-        return regsRepo.findAllByStudentIdWithClass(studentId).stream()
-                .map(r -> r.getClazz())
-                .distinct()
-                .map(studentReadMapper::toClassBrief)
-                .toList();
+        return regsRepo.findClassBriefsByStudentId(studentId);
     }
 }
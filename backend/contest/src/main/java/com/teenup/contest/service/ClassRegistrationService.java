@@ -1,9 +1,12 @@
 package com.teenup.contest.service;
 
 
+import com.teenup.contest.dto.request.BulkRegisterRequest;
 import com.teenup.contest.dto.request.MoveRegistrationRequest;
 import com.teenup.contest.dto.request.RegisterRequest;
 import com.teenup.contest.dto.request.UpdateClassRequest;
+import com.teenup.contest.dto.response.BulkRegisterItemResult;
+import com.teenup.contest.dto.response.BulkRegisterResponse;
 import com.teenup.contest.dto.response.ClassResponse;
 import com.teenup.contest.entity.ClassRegistrationEntity;
 import com.teenup.contest.entity.ClassesEntity;
@@ -14,71 +17,165 @@ import com.teenup.contest.mapper.ClassMapper;
 import com.teenup.contest.repository.ClassRegistrationsRepository;
 import com.teenup.contest.repository.ClassesRepository;
 import com.teenup.contest.repository.StudentsRepository;
+import com.teenup.contest.repository.projection.StudentClassSlot;
+import com.teenup.contest.support.RetryOnConflict;
+import com.teenup.contest.support.TimeSlot;
+import com.teenup.contest.support.WeeklyOccupancy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalTime;
-import java.util.List;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 
 @Service
+@RetryOnConflict
 @RequiredArgsConstructor
 public class ClassRegistrationService {
 
+    private static final String REGISTERED = "REGISTERED";
+
     private final ClassRegistrationsRepository regRepo;
     private final ClassesRepository classRepo;
     private final StudentsRepository studentRepo;
+    private final StudentScheduleIndex scheduleIndex;
+    private final ApplicationEventPublisher events;
+    private final ClassRosterCache rosterCache;
 
 
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void register(Long classId, RegisterRequest req) {
         Long studentId = req.studentId();
 
         ClassesEntity clazz = classRepo.findById(classId)
                 .orElseThrow(() -> new ClassNotFoundException(classId));
 
-        StudentsEntity student = studentRepo.findById(studentId)
-                .orElseThrow(() -> new StudentNotFoundException(studentId));
+        // Khoá học sinh: đăng ký / chuyển lớp của cùng học sinh chạy tuần tự, các câu đọc sau thấy dữ liệu đã commit
+        if (studentRepo.lockForSchedule(List.of(studentId)).isEmpty()) {
+            throw new StudentNotFoundException(studentId);
+        }
+        StudentsEntity student = studentRepo.getReferenceById(studentId);
 
         // 1) Trùng đăng ký?
         boolean exists = regRepo.existsByClazzIdAndStudentId(classId, studentId);
         if (exists) throw new AlreadyRegisteredException(classId, studentId);
 
-        // 2) Lớp đã đầy?
-        int current = regRepo.countByClazzId(classId);
-        if (current >= clazz.getMaxStudents()) throw new ClassFullException(classId);
-
-        // 3) Trùng lịch? (same dayOfWeek && time overlap)
-        var regs = regRepo.findAllByStudentIdWithClass(studentId);
-        if (hasScheduleConflict(clazz, regs)) {
+        // 2) Trùng lịch? (same dayOfWeek && time overlap) – 1 query theo cột phút có index, dưới khoá học sinh
+        if (hasScheduleConflictInDb(studentId, clazz, classId)) {
             throw new ScheduleConflictException("Học sinh " + studentId +
                     " trùng lịch với lớp khác vào " + describeSlot(clazz));
         }
 
+        // 3) Giữ chỗ: UPDATE có điều kiện registered_count < max_students, 0 dòng = lớp đã đầy
+        if (classRepo.reserveSeat(classId) == 0) throw new ClassFullException(classId);
+
         // 4) Lưu
         regRepo.save(new ClassRegistrationEntity(clazz, student));
+        scheduleIndex.onRegistered(studentId, clazz);
+        rosterCache.evictClass(classId);
     }
 
-    private boolean hasScheduleConflict(ClassesEntity target, List<ClassRegistrationEntity> existingRegs) {
-        for (var r : existingRegs) {
-            ClassesEntity c = r.getClazz();
-            if (c.getDayOfWeek().equals(target.getDayOfWeek())) {
-                if (isOverlap(c.getTimeSlot(), target.getTimeSlot())) return true;
+    /**
+     * Đăng ký hàng loạt: mọi studentIds × classIds.
+     * Kiểm tra trùng/đầy/trùng lịch bằng vài query theo tập, INSERT bằng JDBC batch.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public BulkRegisterResponse registerBatch(BulkRegisterRequest req) {
+        List<Long> classIds = req.classIds().stream().distinct().toList();
+        List<Long> studentIds = req.studentIds().stream().distinct().toList();
+
+        // 1) Lớp, học sinh tồn tại (khoá luôn dòng học sinh), lịch hiện có đã commit của cả nhóm học sinh (3 query)
+        Map<Long, ClassesEntity> classes = classRepo.findAllById(classIds).stream()
+                .collect(Collectors.toMap(ClassesEntity::getId, Function.identity()));
+        Set<Long> students = new HashSet<>(studentRepo.lockForSchedule(studentIds));
+        Map<Long, WeeklyOccupancy> schedules = new HashMap<>();
+        if (!students.isEmpty()) {
+            for (StudentClassSlot r : regRepo.findSlotsByStudentIds(students)) {
+                schedules.compute(r.studentId(), (id, occ) -> (occ != null ? occ : WeeklyOccupancy.EMPTY)
+                        .with(r.classId(), r.dayOfWeek(), r.slot()));
+            }
+        }
+
+        // 2) Xét từng cặp trong bộ nhớ; lịch được cộng dồn để 2 lớp trùng giờ trong cùng lô cũng bị chặn
+        List<BulkRegisterItemResult> items = new ArrayList<>();
+        Map<Long, List<Integer>> acceptedByClass = new TreeMap<>(); // classId -> vị trí trong items
+        for (Long classId : classIds) {
+            ClassesEntity clazz = classes.get(classId);
+            int free = clazz != null ? clazz.getMaxStudents() - clazz.getRegisteredCount() : 0;
+            TimeSlot slot = clazz != null ? clazz.slot() : null;
+
+            for (Long studentId : studentIds) {
+                ErrorCode rejected;
+                WeeklyOccupancy occ = schedules.getOrDefault(studentId, WeeklyOccupancy.EMPTY);
+                if (clazz == null) rejected = ErrorCode.CLASS_NOT_FOUND;
+                else if (!students.contains(studentId)) rejected = ErrorCode.STUDENT_NOT_FOUND;
+                else if (occ.contains(classId)) rejected = ErrorCode.ALREADY_REGISTERED;
+                else if (free <= 0) rejected = ErrorCode.CLASS_FULL;
+                else if (occ.intersects(clazz.getDayOfWeek(), slot)) rejected = ErrorCode.SCHEDULE_CONFLICT;
+                else {
+                    schedules.put(studentId, occ.with(classId, clazz.getDayOfWeek(), slot));
+                    free--;
+                    acceptedByClass.computeIfAbsent(classId, k -> new ArrayList<>()).add(items.size());
+                    items.add(new BulkRegisterItemResult(classId, studentId, REGISTERED, null));
+                    continue;
+                }
+                items.add(rejectedItem(classId, studentId, rejected));
+            }
+        }
+
+        // 3) Mỗi lớp (id tăng dần để các lô chạy song song khoá cùng thứ tự): khoá dòng lớp, giữ min(n, còn trống) chỗ,
+        //    INSERT cả nhóm bằng JDBC batch; chỉ phần vượt chỗ / đã có dòng mới bị từ chối
+        int registered = 0;
+        for (var e : acceptedByClass.entrySet()) {
+            Long classId = e.getKey();
+            List<Integer> positions = e.getValue();
+            Integer free = classRepo.lockFreeSeats(classId);
+            int granted = Math.min(positions.size(), free != null ? Math.max(free, 0) : 0);
+
+            // có đăng ký khác chen vào sau bước kiểm tra → chỉ phần vượt số chỗ còn trống bị từ chối
+            for (int i : positions.subList(granted, positions.size())) {
+                items.set(i, rejectedItem(classId, items.get(i).studentId(), ErrorCode.CLASS_FULL));
+            }
+            if (granted == 0) continue;
+
+            List<Long> candidates = positions.subList(0, granted).stream().map(i -> items.get(i).studentId()).toList();
+            Set<Long> inserted = new HashSet<>(regRepo.batchInsert(classId, candidates));
+            for (int i : positions.subList(0, granted)) {
+                if (!inserted.contains(items.get(i).studentId())) {
+                    items.set(i, rejectedItem(classId, items.get(i).studentId(), ErrorCode.ALREADY_REGISTERED));
+                }
             }
+            if (inserted.isEmpty()) continue;
+            if (classRepo.reserveSeats(classId, inserted.size()) == 0) {
+                // dòng lớp đang bị khoá nên không xảy ra; nếu có thì rollback để @RetryOnConflict chạy lại
+                throw new ConcurrencyFailureException("Class seats changed while locked: classId=" + classId);
+            }
+            registered += inserted.size();
+
+            ClassesEntity clazz = classes.get(classId);
+            inserted.forEach(studentId -> scheduleIndex.onRegistered(studentId, clazz));
         }
-        return false;
+        rosterCache.evictClasses(acceptedByClass.keySet());
+
+        return new BulkRegisterResponse(items.size(), registered, items.size() - registered, items);
     }
 
-    // timeSlot format: "HH:mm-HH:mm"
-    private boolean isOverlap(String slotA, String slotB) {
-        var a = slotA.split("-");
-        var b = slotB.split("-");
-        LocalTime aStart = LocalTime.parse(a[0]);
-        LocalTime aEnd   = LocalTime.parse(a[1]);
-        LocalTime bStart = LocalTime.parse(b[0]);
-        LocalTime bEnd   = LocalTime.parse(b[1]);
+    private static BulkRegisterItemResult rejectedItem(Long classId, Long studentId, ErrorCode ec) {
+        return new BulkRegisterItemResult(classId, studentId, ec.code(), ec.defaultMessage());
+    }
 
-        return aStart.isBefore(bEnd) && bStart.isBefore(aEnd);
+    // lịch đã commit, không tính lớp ignoreClassId (lớp đích khi đăng ký, lớp nguồn khi chuyển)
+    private boolean hasScheduleConflictInDb(Long studentId, ClassesEntity target, Long ignoreClassId) {
+        TimeSlot slot = target.slot();
+        return regRepo.existsScheduleConflict(studentId, target.getDayOfWeek(),
+                slot.startMinute(), slot.endMinute(), ignoreClassId);
     }
 
     private String describeSlot(ClassesEntity c) {
@@ -92,77 +189,59 @@ public class ClassRegistrationService {
         var reg = regRepo.findByClassIdAndStudentId(classId, studentId)
                 .orElseThrow(() -> new RegistrationNotFoundException(classId, studentId));
         regRepo.delete(reg);
+        classRepo.releaseSeat(classId);
+        scheduleIndex.onUnregistered(studentId, classId);
+        rosterCache.evictClass(classId);
+        events.publishEvent(new SeatsFreedEvent(classId));
     }
 
     // Chuyển lớp: từ classId -> targetClassId
-    @Transactional
+    // Số câu lệnh cố định: đọc lớp đích, khoá học sinh, 2 câu kiểm tra, giữ chỗ, UPDATE dòng đăng ký, trả chỗ lớp nguồn
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public void move(Long classId, Long studentId, MoveRegistrationRequest req) {
-        var src = classRepo.findById(classId)
-                .orElseThrow(() -> new ClassNotFoundException(classId));
-        var student = studentRepo.findById(studentId)
-                .orElseThrow(() -> new StudentNotFoundException(studentId));
-
         Long targetId = req.targetClassId();
         if (targetId.equals(classId)) {
             throw new SameClassTargetException(classId);
         }
         var target = classRepo.findById(targetId)
                 .orElseThrow(() -> new ClassNotFoundException(targetId));
+        // khoá học sinh như register (không tồn tại → moveToClass trả 0 dòng, báo lỗi bên dưới)
+        studentRepo.lockForSchedule(List.of(studentId));
 
-        // phải đang đăng ký ở classId
-        regRepo.findByClassIdAndStudentId(classId, studentId)
-                .orElseThrow(() -> new RegistrationNotFoundException(classId, studentId));
-
-        // đã đăng ký lớp đích?
-        if (regRepo.existsByClassIdAndStudentId(targetId, studentId)) {
+        // đã đăng ký lớp đích? trùng lịch với các lớp khác (ngoại trừ lớp nguồn)? → kiểm tra trên DB dưới khoá học sinh
+        if (regRepo.existsByClazzIdAndStudentId(targetId, studentId)) {
             throw new BaseException(ErrorCode.ALREADY_REGISTERED,
                     "Học sinh đã đăng ký lớp đích: classId=" + targetId);
         }
-
-        // lớp đích còn chỗ?
-        long targetCount = regRepo.countByClassId(targetId);
-        if (targetCount >= target.getMaxStudents()) {
-            throw new BaseException(ErrorCode.CLASS_FULL,
-                    "Lớp đích đã đủ: classId=" + targetId);
-        }
-
-        // kiểm tra trùng lịch với các lớp khác của học sinh (ngoại trừ lớp nguồn)
-        // logic: dayOfWeek trùng & timeSlot overlap
-        if (hasScheduleConflict(student, target, classId)) {
+        if (hasScheduleConflictInDb(studentId, target, classId)) {
             throw new BaseException(ErrorCode.SCHEDULE_CONFLICT,
                     "Trùng lịch khi chuyển sang lớp: day=" + target.getDayOfWeek()
                             + ", time=" + target.getTimeSlot());
         }
 
-        // Thực hiện: xoá đăng ký cũ, thêm đăng ký mới
-        regRepo.delete(regRepo.findByClassIdAndStudentId(classId, studentId).get());
-        regRepo.save(new ClassRegistrationEntity(target, student));
-    }
-
-    // ---- Helper ----
-    private boolean hasScheduleConflict(StudentsEntity student, ClassesEntity targetClass, Long ignoreClassId) {
-        // Lấy toàn bộ đăng ký của học sinh (có thể tối ưu query riêng)
-        // Ở đây tận dụng mapping: student.getRegistrations()
-        return student.getRegistrations().stream()
-                .filter(r -> !r.getClazz().getId().equals(ignoreClassId))
-                .map(r -> r.getClazz())
-                .anyMatch(c ->
-                        c.getDayOfWeek().equals(targetClass.getDayOfWeek())
-                                && isTimeOverlap(c.getTimeSlot(), targetClass.getTimeSlot())
-                );
-    }
-
-    // timeSlot "HH:mm-HH:mm"
-    static boolean isTimeOverlap(String a, String b) {
-        String[] A = a.split("-");
-        String[] B = b.split("-");
-        int aStart = toMinutes(A[0]), aEnd = toMinutes(A[1]);
-        int bStart = toMinutes(B[0]), bEnd = toMinutes(B[1]);
-        return aStart < bEnd && bStart < aEnd;
-    }
+        // lớp đích còn chỗ? giữ chỗ nguyên tử
+        if (classRepo.reserveSeat(targetId) == 0) {
+            throw new BaseException(ErrorCode.CLASS_FULL,
+                    "Lớp đích đã đủ: classId=" + targetId);
+        }
 
-    static int toMinutes(String hhmm) {
-        var p = hhmm.split(":");
-        return Integer.parseInt(p[0]) * 60 + Integer.parseInt(p[1]);
+        // Thực hiện: đổi class_id tại chỗ thay vì xoá + thêm
+        int moved;
+        try {
+            moved = regRepo.moveToClass(classId, studentId, targetId, Instant.now());
+        } catch (DataIntegrityViolationException ex) {
+            throw new BaseException(ErrorCode.ALREADY_REGISTERED,
+                    "Học sinh đã đăng ký lớp đích: classId=" + targetId);
+        }
+        if (moved == 0) {
+            // chỉ khi thất bại mới query để báo đúng lỗi (transaction rollback cả chỗ vừa giữ)
+            if (!classRepo.existsById(classId)) throw new ClassNotFoundException(classId);
+            if (!studentRepo.existsById(studentId)) throw new StudentNotFoundException(studentId);
+            throw new RegistrationNotFoundException(classId, studentId);
+        }
+        classRepo.releaseSeat(classId);
+        scheduleIndex.onMoved(studentId, classId, target);
+        rosterCache.evictClass(classId, targetId);
+        events.publishEvent(new SeatsFreedEvent(classId));
     }
 }
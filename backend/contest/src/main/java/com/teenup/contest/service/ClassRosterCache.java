@@ -0,0 +1,68 @@
+package com.teenup.contest.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teenup.contest.dto.response.ClassWithStudentsResponse;
+import com.teenup.contest.dto.response.RegisteredStudentBrief;
+import com.teenup.contest.support.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Cache kết quả đọc "chi tiết lớp + học sinh" và "danh sách học sinh của lớp" (đã map sang DTO).
+ * Giới hạn số phần tử + TTL; bị xoá theo classId sau khi transaction ghi (đăng ký, huỷ, chuyển lớp,
+ * sửa/xoá lớp, sửa học sinh) commit. Hit/miss xem ở /actuator/metrics/cache.gets?tag=cache:class.detail
+ */
+@Component
+public class ClassRosterCache {
+
+    private final Cache<Long, ClassWithStudentsResponse> details;
+    private final Cache<Long, List<RegisteredStudentBrief>> rosters;
+    private final StudentScheduleIndex scheduleIndex;
+
+    public ClassRosterCache(@Value("${app.cache.class-roster.ttl:PT10M}") Duration ttl,
+                            @Value("${app.cache.class-roster.max-entries:2000}") long maxEntries,
+                            StudentScheduleIndex scheduleIndex,
+                            MeterRegistry meters) {
+        this.scheduleIndex = scheduleIndex;
+        this.details = Caffeine.newBuilder()
+                .expireAfterWrite(ttl).maximumSize(maxEntries).recordStats().build();
+        this.rosters = Caffeine.newBuilder()
+                .expireAfterWrite(ttl).maximumSize(maxEntries).recordStats().build();
+        CaffeineCacheMetrics.monitor(meters, details, "class.detail");
+        CaffeineCacheMetrics.monitor(meters, rosters, "class.roster");
+    }
+
+    public ClassWithStudentsResponse detail(Long classId, Function<Long, ClassWithStudentsResponse> loader) {
+        return details.get(classId, loader);
+    }
+
+    public List<RegisteredStudentBrief> roster(Long classId, Function<Long, List<RegisteredStudentBrief>> loader) {
+        return rosters.get(classId, loader);
+    }
+
+    /** Dữ liệu lớp / danh sách đăng ký của lớp đổi → bỏ cache sau khi commit. */
+    public void evictClass(Long... classIds) {
+        evictClasses(List.of(classIds));
+    }
+
+    public void evictClasses(Iterable<Long> classIds) {
+        AfterCommit.run(() -> {
+            details.invalidateAll(classIds);
+            rosters.invalidateAll(classIds);
+        });
+    }
+
+    /** Thông tin học sinh đổi → bỏ cache các lớp học sinh đang học. */
+    public void evictClassesOf(Long studentId) {
+        Set<Long> classIds = scheduleIndex.get(studentId).classIds();
+        if (!classIds.isEmpty()) evictClasses(Set.copyOf(classIds));
+    }
+}
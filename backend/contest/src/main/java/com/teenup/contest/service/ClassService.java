@@ -8,8 +8,13 @@ import com.teenup.contest.exception.*;
 import com.teenup.contest.exception.ClassNotFoundException;
 import com.teenup.contest.mapper.ClassMapper;
 import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.ClassWaitlistRepository;
 import com.teenup.contest.repository.ClassesRepository;
+import com.teenup.contest.repository.StudentsRepository;
+import com.teenup.contest.support.RetryOnConflict;
+import com.teenup.contest.support.TimeSlot;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,26 +27,36 @@ public class ClassService {
     private final ClassesRepository classesRepo;
     private final ClassRegistrationsRepository regsRepo;
     private final ClassMapper mapper;
+    private final StudentScheduleIndex scheduleIndex;
+    private final ClassWaitlistRepository waitlistRepo;
+    private final ApplicationEventPublisher events;
+    private final ClassCatalogIndex catalogIndex;
+    private final StudentsRepository studentsRepo;
+    private final ClassRosterCache rosterCache;
 
     @Transactional
     public ClassResponse create(CreateClassRequest req) {
         ClassesEntity saved = classesRepo.save(mapper.toEntity(req));
+        catalogIndex.onClassesChanged();
         return mapper.toResponse(saved);
     }
 
-    @Transactional(readOnly = true)
     public List<ClassResponse> listByDay(Integer day) {
         if (day != null && (day < 1 || day > 7)) {
             throw new InvalidDayException(day);
         }
-        List<ClassesEntity> list = (day == null) ? classesRepo.findAll() : classesRepo.findByDayOfWeek(day);
-        return list.stream().map(mapper::toResponse).toList();
+        // đọc từ snapshot thời khoá biểu trong bộ nhớ (không query DB)
+        return catalogIndex.classes(day);
     }
 
-    // MỚI: trả entity có fetch join students (phục vụ expand=registrations)
+    // Lớp còn chỗ & không trùng lịch với học sinh: lọc lịch bằng index trong bộ nhớ, 1 query kiểm tra chỗ trống
     @Transactional(readOnly = true)
-    public List<ClassesEntity> listEntitiesByDay(Integer day) {
-        return classesRepo.findAllWithStudentsByDay(day);
+    public List<ClassResponse> listAvailableFor(Long studentId) {
+        if (!studentsRepo.existsById(studentId)) throw new StudentNotFoundException(studentId);
+
+        List<Long> fitting = catalogIndex.classesFitting(scheduleIndex.get(studentId));
+        if (fitting.isEmpty()) return List.of();
+        return classesRepo.findWithFreeSeatsByIdIn(fitting);
     }
 
 //    @Transactional
@@ -71,21 +86,24 @@ public class ClassService {
             throw new ClassHasRegistrationsException(id);
         }
 
+        waitlistRepo.deleteByClassId(id);
         classesRepo.delete(entity);
+        catalogIndex.onClassesChanged();
+        rosterCache.evictClass(id);
     }
 
 
+    @RetryOnConflict
     @Transactional
     public ClassResponse update(Long id, UpdateClassRequest req) {
         ClassesEntity entity = classesRepo.findById(id)
                 .orElseThrow(() -> new ClassNotFoundException(id));
 
-        // 1) Nếu giảm maxStudents → không < số đăng ký hiện tại
-        if (req.maxStudents() != null) {
-            long currentRegs = regsRepo.countByClassId(id);
-            if (req.maxStudents() < currentRegs) {
-                throw new ClassCapacityTooSmallException(req.maxStudents(), currentRegs);
-            }
+        // 1) Nếu giảm maxStudents → không < số chỗ đã giữ; so sánh trong UPDATE có điều kiện
+        //    (registered_count trên entity có thể đã cũ, reserveSeat không tăng version)
+        if (req.maxStudents() != null && req.maxStudents() < entity.getMaxStudents()
+                && classesRepo.lowerCapacity(id, req.maxStudents()) == 0) {
+            throw new ClassCapacityTooSmallException(req.maxStudents(), classesRepo.findRegisteredCount(id));
         }
 
         // 2) Nếu đổi dayOfWeek/timeSlot → kiểm tra conflict với lịch hiện có của học sinh
@@ -96,24 +114,34 @@ public class ClassService {
         boolean changedDay   = (req.dayOfWeek() != null && !req.dayOfWeek().equals(entity.getDayOfWeek()));
         boolean changedSlot  = (req.timeSlot()  != null && !req.timeSlot().equals(entity.getTimeSlot()));
         if (changedDay || changedSlot) {
-            String[] parts = targetTS.split("-");
-            if (parts.length != 2) {
+            TimeSlot slot;
+            try {
+                slot = TimeSlot.parse(targetTS);
+            } catch (IllegalArgumentException ex) {
                 throw new BaseException(ErrorCode.VALIDATION_FAILED, "timeSlot phải dạng HH:mm-HH:mm");
             }
-            String start = parts[0].trim();
-            String end   = parts[1].trim();
 
-            boolean conflict = regsRepo.existsConflictWhenReschedule(id, targetDay, start, end);
+            boolean conflict = regsRepo.existsConflictWhenReschedule(
+                    id, targetDay, slot.startMinute(), slot.endMinute());
             if (conflict) {
                 throw new BaseException(
                         ErrorCode.SCHEDULE_CONFLICT,
                         "Đổi lịch gây trùng với lịch hiện có của học sinh (day=" + targetDay + ", time=" + targetTS + ")"
                 );
             }
+            scheduleIndex.onClassRescheduled(id);
         }
 
         // 3) Map các field != null
+        boolean capacityRaised = req.maxStudents() != null && req.maxStudents() > entity.getMaxStudents();
         mapper.updateEntityFromDto(req, entity);
+        rosterCache.evictClass(id);
+        catalogIndex.onClassesChanged();
+
+        // tăng sĩ số → xét hàng chờ sau khi commit
+        if (capacityRaised) {
+            events.publishEvent(new SeatsFreedEvent(id));
+        }
 
         return mapper.toResponse(entity);
     }  
@@ -0,0 +1,109 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.response.ParentResponse;
+import com.teenup.contest.dto.response.StudentResponse;
+import com.teenup.contest.repository.ParentsRepository;
+import com.teenup.contest.repository.StudentsRepository;
+import com.teenup.contest.support.AfterCommit;
+import com.teenup.contest.support.TextSearchIndex;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index tìm kiếm phụ huynh (tên / SĐT / email) và học sinh (tên), không dấu, trong bộ nhớ.
+ * Nạp toàn bộ ở lần tìm đầu tiên; sau đó cập nhật từng bản ghi (nạp lại theo id ở luồng nền) khi ghi commit.
+ */
+@Component
+public class DirectorySearchIndex {
+
+    private final ParentsRepository parentsRepo;
+    private final StudentsRepository studentsRepo;
+    private final TaskExecutor executor;
+
+    private final TextSearchIndex<ParentResponse> parents = new TextSearchIndex<>();
+    private final TextSearchIndex<StudentResponse> students = new TextSearchIndex<>();
+    // nạp đầy đủ & cập nhật đi qua cùng 1 khoá → không ghi đè dữ liệu mới bằng bản đọc cũ
+    private final Object lock = new Object();
+    private volatile boolean loaded;
+
+    public DirectorySearchIndex(ParentsRepository parentsRepo,
+                                StudentsRepository studentsRepo,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor executor) {
+        this.parentsRepo = parentsRepo;
+        this.studentsRepo = studentsRepo;
+        this.executor = executor;
+    }
+
+    public List<ParentResponse> searchParents(String q, int limit) {
+        ensureLoaded();
+        return parents.search(q, limit);
+    }
+
+    public List<StudentResponse> searchStudents(String q, int limit) {
+        ensureLoaded();
+        return students.search(q, limit);
+    }
+
+    /** Phụ huynh tạo / sửa → nạp lại phụ huynh và học sinh của họ (StudentResponse kèm thông tin phụ huynh). */
+    public void onParentChanged(Long parentId) {
+        afterCommit(() -> {
+            parentsRepo.findResponsesByIdIn(List.of(parentId)).forEach(this::putParent);
+            refreshStudents(studentsRepo.findIdsByParentId(parentId));
+        });
+    }
+
+    public void onParentDeleted(Long parentId) {
+        afterCommit(() -> parents.remove(parentId));
+    }
+
+    /** Học sinh tạo / sửa / đổi phụ huynh. */
+    public void onStudentsChanged(Collection<Long> studentIds) {
+        Set<Long> ids = Set.copyOf(studentIds);
+        afterCommit(() -> refreshStudents(ids));
+    }
+
+    public void onStudentDeleted(Long studentId) {
+        afterCommit(() -> students.remove(studentId));
+    }
+
+    private void refreshStudents(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        List<StudentResponse> rows = studentsRepo.findResponsesByIdIn(ids);
+        rows.forEach(this::putStudent);
+        // id không còn trong DB → đã bị xoá
+        ids.stream().filter(id -> rows.stream().noneMatch(r -> r.id().equals(id))).forEach(students::remove);
+    }
+
+    // chạy sau commit, ở luồng nền (không dùng lại tài nguyên transaction vừa kết thúc); chưa nạp thì bỏ qua
+    private void afterCommit(Runnable update) {
+        AfterCommit.run(() -> executor.execute(() -> {
+            synchronized (lock) {
+                if (loaded) update.run();
+            }
+        }));
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (lock) {
+            if (loaded) return;
+            parentsRepo.findAllResponses().forEach(this::putParent);
+            studentsRepo.findPageAfter(0L, Limit.unlimited()).forEach(this::putStudent);
+            loaded = true;
+        }
+    }
+
+    private void putParent(ParentResponse p) {
+        parents.put(p.id(), p, p.name(), p.phone(), p.email());
+    }
+
+    private void putStudent(StudentResponse s) {
+        students.put(s.id(), s, s.name());
+    }
+}
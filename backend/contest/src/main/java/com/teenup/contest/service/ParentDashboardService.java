@@ -0,0 +1,80 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.response.ParentDashboardResponse;
+import com.teenup.contest.dto.response.ParentResponse;
+import com.teenup.contest.dto.response.ParentStudentItem;
+import com.teenup.contest.dto.response.StudentClassBrief;
+import com.teenup.contest.dto.response.SubscriptionResponse;
+import com.teenup.contest.exception.ParentNotFoundException;
+import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.ParentsRepository;
+import com.teenup.contest.repository.StudentsRepository;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.repository.projection.StudentClassRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Trang gia đình: phụ huynh + học sinh + lớp + gói học trong 1 response.
+ * 4 query theo parentId (không phụ thuộc nhau) chạy song song trên virtual thread,
+ * mỗi query đọc thẳng ra DTO nên không cần transaction / session chung.
+ */
+@Service
+@RequiredArgsConstructor
+public class ParentDashboardService {
+
+    private final ParentsRepository parentsRepo;
+    private final StudentsRepository studentsRepo;
+    private final ClassRegistrationsRepository regsRepo;
+    private final SubscriptionsRepository subsRepo;
+
+    public ParentDashboardResponse dashboard(Long parentId) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<ParentResponse>> parent = executor.submit(() -> parentsRepo.findResponsesByIdIn(List.of(parentId)));
+            Future<List<ParentStudentItem>> students = executor.submit(() -> studentsRepo.findItemsByParentId(parentId));
+            Future<List<StudentClassRow>> classes = executor.submit(() -> regsRepo.findClassRowsByParentId(parentId));
+            Future<List<SubscriptionResponse>> subs = executor.submit(() -> subsRepo.findResponsesByParentId(parentId));
+
+            ParentResponse p = await(parent).stream().findFirst()
+                    .orElseThrow(() -> new ParentNotFoundException(parentId));
+
+            Map<Long, List<StudentClassBrief>> classesByStudent = await(classes).stream()
+                    .collect(groupingBy(StudentClassRow::studentId, mapping(StudentClassRow::brief, toList())));
+            Map<Long, List<SubscriptionResponse>> subsByStudent = await(subs).stream()
+                    .collect(groupingBy(SubscriptionResponse::studentId));
+
+            List<ParentDashboardResponse.Student> items = await(students).stream()
+                    .map(s -> new ParentDashboardResponse.Student(
+                            s.id(), s.name(), s.dob(), s.gender(), s.currentGrade(),
+                            classesByStudent.getOrDefault(s.id(), List.of()),
+                            subsByStudent.getOrDefault(s.id(), List.of())))
+                    .toList();
+            return new ParentDashboardResponse(p, items);
+        }
+    }
+
+    // Lỗi của query con được ném lại nguyên dạng (ApiExceptionHandler xử lý như gọi trực tiếp)
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading dashboard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
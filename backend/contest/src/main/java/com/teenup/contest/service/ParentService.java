@@ -3,6 +3,7 @@ package com.teenup.contest.service;
 import com.teenup.contest.dto.request.CreateParentRequest;
 import com.teenup.contest.dto.request.ReassignStudentsRequest;
 import com.teenup.contest.dto.request.UpdateParentRequest;
+import com.teenup.contest.dto.response.CursorPage;
 import com.teenup.contest.dto.response.ParentResponse;
 import com.teenup.contest.dto.response.ParentStudentItem;
 import com.teenup.contest.dto.response.ReassignResultResponse;
@@ -12,10 +13,13 @@ import com.teenup.contest.exception.*;
 import com.teenup.contest.mapper.ParentMapper;
 import com.teenup.contest.mapper.StudentMapper;
 import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.ClassWaitlistRepository;
 import com.teenup.contest.repository.ParentsRepository;
+import com.teenup.contest.repository.SessionUsagesRepository;
 import com.teenup.contest.repository.StudentsRepository;
 import com.teenup.contest.repository.SubscriptionsRepository;
 import lombok.AccessLevel;
+import com.teenup.contest.support.KeysetPaging;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.stereotype.Service;
@@ -34,6 +38,10 @@ public class ParentService {
     private final StudentMapper studentMapper;
     private final ClassRegistrationsRepository regsRepo;
     private final SubscriptionsRepository subsRepo;
+    private final ClassWaitlistRepository waitlistRepo;
+    private final SessionUsagesRepository usageRepo;
+    private final KeysetPaging paging;
+    private final DirectorySearchIndex searchIndex;
 
     @Transactional
     public ParentResponse create(CreateParentRequest req) {
@@ -41,6 +49,7 @@ public class ParentService {
             throw new IllegalArgumentException("Email đã tồn tại");
         }
         ParentsEntity saved = parentsRepo.save(mapper.toEntity(req));
+        searchIndex.onParentChanged(saved.getId());
         return mapper.toResponse(saved);
     }
 
@@ -52,8 +61,10 @@ public class ParentService {
     }
 
     @Transactional(readOnly = true)
-    public List<ParentResponse> getAll() {
-        return mapper.toResponses(parentsRepo.findAll());
+    public CursorPage<ParentResponse> getAll(String cursor, Integer limit) {
+        int size = paging.size(cursor, limit);
+        List<ParentsEntity> rows = parentsRepo.findByIdGreaterThanOrderByIdAsc(paging.after(cursor), paging.probe(size));
+        return paging.page(rows, size, ParentsEntity::getId, mapper::toResponse);
     }
 
     @Transactional
@@ -62,6 +73,7 @@ public class ParentService {
                 .orElseThrow(() -> new ParentNotFoundException(id));
 
         mapper.updateEntityFromDto(req, entity);
+        searchIndex.onParentChanged(id);
         // JPA dirty checking tự lưu
         return mapper.toResponse(entity);
     }
@@ -77,6 +89,12 @@ public class ParentService {
         }
 
         parentsRepo.delete(entity);
+        searchIndex.onParentDeleted(id);
+    }
+
+    /** Tìm phụ huynh theo tên / SĐT / email (không dấu, index trong bộ nhớ). */
+    public List<ParentResponse> search(String q, int limit) {
+        return searchIndex.searchParents(q, limit);
     }
 
     @Transactional
@@ -94,6 +112,7 @@ public class ParentService {
         int moved;
         if (req.studentIds() == null || req.studentIds().isEmpty()) {
             // chuyển TẤT CẢ
+            searchIndex.onStudentsChanged(studentsRepo.findIdsByParentId(sourceParentId));
             moved = studentsRepo.reassignAll(source, target);
         } else {
             // xác thực mọi id đều thuộc parent nguồn
@@ -102,6 +121,7 @@ public class ParentService {
                 throw new StudentNotBelongToParentException(sourceParentId, invalid);
             }
             moved = studentsRepo.reassignSome(req.studentIds(), source, target);
+            searchIndex.onStudentsChanged(req.studentIds());
         }
 
         long remaining = studentsRepo.countByParentId(sourceParentId);
@@ -142,8 +162,11 @@ public class ParentService {
             throw new StudentHasActiveSubscriptionsException(studentId);
         }
 
-        // 5) Xoá
+        // 5) Xoá (kèm các chỗ trong hàng chờ, sổ dùng buổi của các gói)
+        waitlistRepo.deleteByStudentId(studentId);
+        usageRepo.deleteByStudentId(studentId);
         studentsRepo.delete(s);
+        searchIndex.onStudentDeleted(studentId);
     }
 
 }
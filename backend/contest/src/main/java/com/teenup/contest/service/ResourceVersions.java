@@ -0,0 +1,70 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.repository.ClassesRepository;
+import com.teenup.contest.repository.ParentsRepository;
+import com.teenup.contest.repository.StudentsRepository;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.repository.projection.VersionStamp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * ETag (strong) cho các GET, tính từ cột version bằng 1 query dò nhẹ – không đọc/serialize dữ liệu.
+ * Trả null khi bản ghi không tồn tại → controller đi tiếp luồng thường (ném 404).
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ResourceVersions {
+
+    private final ClassesRepository classesRepo;
+    private final ParentsRepository parentsRepo;
+    private final StudentsRepository studentsRepo;
+    private final SubscriptionsRepository subsRepo;
+    private final ClassCatalogIndex catalogIndex;
+
+    public String classDetail(Long classId) {
+        return classesRepo.stampWithRosterById(classId).map(s -> etag("class-" + classId, s)).orElse(null);
+    }
+
+    // danh sách lớp phục vụ từ snapshot trong bộ nhớ → ETag là VersionStamp tính sẵn trên snapshot, không cần query dò
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String classes(Integer day) {
+        return catalogIndex.etag(day);
+    }
+
+    public String parent(Long id) {
+        return parentsRepo.findVersionById(id).map(v -> etag("parent-" + id + "-v" + v)).orElse(null);
+    }
+
+    public String parents() {
+        return etag("parents", parentsRepo.stampAll());
+    }
+
+    public String student(Long id) {
+        return studentsRepo.stampById(id).map(s -> etag("student-" + id, s)).orElse(null);
+    }
+
+    // StudentResponse kèm parent → đổi phụ huynh cũng phải đổi ETag
+    public String students() {
+        return etag("students-" + studentsRepo.stampAll().tag(), parentsRepo.stampAll());
+    }
+
+    public String subscription(Long id) {
+        return subsRepo.stampById(id).map(s -> etag("subscription-" + id, s)).orElse(null);
+    }
+
+    public String subscriptions(Long studentId) {
+        return etag("subscriptions-" + (studentId == null ? "all" : studentId), subsRepo.stampByStudent(studentId));
+    }
+
+    private static String etag(String prefix, VersionStamp stamp) {
+        return etag(prefix + "-" + stamp.tag());
+    }
+
+    private static String etag(String value) {
+        return "\"" + value + "\"";
+    }
+}
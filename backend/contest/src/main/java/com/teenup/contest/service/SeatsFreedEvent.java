@@ -0,0 +1,4 @@
+package com.teenup.contest.service;
+
+/** Lớp vừa có thể trống chỗ (huỷ/chuyển lớp, tăng maxStudents) → xét hàng chờ sau khi commit. */
+public record SeatsFreedEvent(Long classId) {}
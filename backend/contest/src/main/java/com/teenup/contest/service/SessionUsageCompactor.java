@@ -0,0 +1,61 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.repository.SessionUsagesRepository;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Gộp định kỳ sổ dùng buổi vào snapshot subscriptions.used_sessions để phần phải cộng khi đọc luôn ngắn.
+ * Dòng sổ giữ nguyên (lịch sử), chỉ bật cờ compacted cùng transaction với lần cộng vào snapshot.
+ * Khoá dòng gói như khi ghi sổ (SessionUsageLedger) → không có dòng sổ nào của gói đó đang ghi dở lúc gộp.
+ */
+@Slf4j
+@Component
+public class SessionUsageCompactor {
+
+    private final SessionUsagesRepository usageRepo;
+    private final SubscriptionsRepository subsRepo;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+
+    public SessionUsageCompactor(SessionUsagesRepository usageRepo,
+                                 SubscriptionsRepository subsRepo,
+                                 PlatformTransactionManager txManager,
+                                 @Value("${app.usage.compaction-batch:500}") int batchSize) {
+        this.usageRepo = usageRepo;
+        this.subsRepo = subsRepo;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.usage.compaction-interval:PT5M}")
+    public void compact() {
+        int compacted = 0;
+        List<Long> ids;
+        do {
+            // mỗi lô 1 transaction ngắn
+            ids = tx.execute(s -> {
+                List<Long> batch = usageRepo.findPendingSubscriptionIds(Limit.of(batchSize));
+                if (!batch.isEmpty()) {
+                    subsRepo.lockForUsage(batch);
+                    subsRepo.batchCompact(usageRepo.findTails(batch));
+                    usageRepo.markCompacted(batch);
+                }
+                return batch;
+            });
+            compacted += ids.size();
+        } while (ids.size() == batchSize);
+
+        if (compacted > 0) log.info("[UsageLedger] Gộp sổ dùng buổi cho {} gói", compacted);
+    }
+}
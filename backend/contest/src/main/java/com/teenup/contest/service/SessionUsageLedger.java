@@ -0,0 +1,84 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.entity.UsageReason;
+import com.teenup.contest.repository.SessionUsagesRepository;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.repository.projection.SubscriptionBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Trừ buổi qua sổ append-only (session_usages): mỗi lần dùng là 1 INSERT, không UPDATE dòng subscriptions
+ * (version / ETag của gói không đổi, không xung đột @Version với sửa / gia hạn gói).
+ *
+ * Điều kiện "trong hạn, còn buổi" do DB giữ: khoá dòng gói (SELECT ... FOR UPDATE) rồi mới đọc snapshot + phần sổ
+ * chưa gộp. Mọi lần ghi sổ (check-in, điểm danh, reset, job gộp) đều khoá dòng gói trước nên các lượt trên cùng 1 gói
+ * chạy lần lượt – kể cả trên nhiều node – còn gói khác nhau không chặn nhau. Cố ý không gộp thành 1 câu
+ * INSERT ... SELECT có điều kiện: dưới READ_COMMITTED phần SELECT không khoá nên 2 lượt song song cùng lọt.
+ * Caller chạy trong transaction READ_COMMITTED để lần đọc sau khi khoá thấy mọi dòng sổ đã commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionUsageLedger {
+
+    public enum Outcome { CONSUMED, NOT_FOUND, INACTIVE, EXHAUSTED }
+
+    /** Kết quả trừ buổi; remaining = số buổi còn lại ngay sau lần trừ này */
+    public record Reservation(Outcome outcome, int remaining) {}
+
+    private final SubscriptionsRepository subsRepo;
+    private final SessionUsagesRepository usageRepo;
+
+    /** Trừ 1 buổi của gói `id` cho ngày `day`. */
+    public Reservation consume(Long id, LocalDate day, UsageReason reason) {
+        SubscriptionBalance b = lock(List.of(id)).get(id);
+        if (b == null) return new Reservation(Outcome.NOT_FOUND, 0);
+
+        Outcome outcome = check(b, day, 0);
+        if (outcome != Outcome.CONSUMED) return new Reservation(outcome, b.remaining());
+        usageRepo.batchAppend(List.of(id), 1, reason);
+        return new Reservation(Outcome.CONSUMED, b.remaining() - 1);
+    }
+
+    /** Khoá các gói rồi trả số dư đã commit (gói không tồn tại thì không có trong map). */
+    public Map<Long, SubscriptionBalance> lock(Collection<Long> ids) {
+        requireTransaction();
+        if (ids.isEmpty() || subsRepo.lockForUsage(ids).isEmpty()) return Map.of();
+        return subsRepo.findBalancesByIds(ids).stream()
+                .collect(Collectors.toMap(SubscriptionBalance::id, Function.identity()));
+    }
+
+    /** Kiểm tra gói đã khoá cho ngày `day`, khi trong cùng lô đã trừ `taken` buổi của gói này. */
+    public static Outcome check(SubscriptionBalance b, LocalDate day, int taken) {
+        if (day.isBefore(b.startDate()) || day.isAfter(b.endDate())) return Outcome.INACTIVE;
+        if (b.remaining() - taken <= 0) return Outcome.EXHAUSTED;
+        return Outcome.CONSUMED;
+    }
+
+    /** Ghi mỗi gói 1 dòng delta = +1 – chỉ sau {@link #lock} và {@link #check} trong cùng transaction. */
+    public void append(List<Long> subscriptionIds, UsageReason reason) {
+        if (!subscriptionIds.isEmpty()) usageRepo.batchAppend(subscriptionIds, 1, reason);
+    }
+
+    /** Reset số buổi đã dùng về 0 bằng 1 dòng sổ delta = -đã dùng (tính trên dữ liệu đã commit, sau khi khoá). */
+    public boolean reset(Long id) {
+        SubscriptionBalance b = lock(List.of(id)).get(id);
+        if (b == null) return false;
+        if (b.usedSessions() != 0) usageRepo.batchAppend(List.of(id), -b.usedSessions(), UsageReason.RESET);
+        return true;
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("SessionUsageLedger phải được gọi trong transaction");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.entity.ClassesEntity;
+import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.projection.StudentClassSlot;
+import com.teenup.contest.support.AfterCommit;
+import com.teenup.contest.support.TimeSlot;
+import com.teenup.contest.support.WeeklyOccupancy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache lịch tuần (bitset) theo học sinh cho các đường đọc: gợi ý lớp còn hợp lịch, roster theo học sinh.
+ * Nạp lười từ DB khi miss (transaction riêng, READ COMMITTED); cập nhật sau khi transaction ghi commit.
+ *
+ * Mỗi học sinh có 1 version tăng sau mỗi thay đổi; bản nạp chỉ được cache nếu version (và epoch đổi lịch lớp)
+ * không đổi trong lúc nạp — kiểm tra và ghi nằm trong cùng 1 compute trên key nên không chen được.
+ * Không dùng để kiểm tra trùng lịch khi ghi: đăng ký/chuyển lớp hỏi thẳng DB sau khi khoá học sinh.
+ */
+@Component
+public class StudentScheduleIndex {
+
+    private record Cached(long version, WeeklyOccupancy occupancy) {}
+
+    private final ClassRegistrationsRepository regsRepo;
+    private final TransactionTemplate loadTx;
+
+    private final ConcurrentMap<Long, Cached> byStudent = new ConcurrentHashMap<>();
+    // version mới nhất của từng học sinh; chỉ sửa bên trong byStudent.compute của đúng key
+    private final ConcurrentMap<Long, Long> versions = new ConcurrentHashMap<>();
+    // tăng khi 1 lớp đổi lịch: ảnh hưởng cả học sinh đang nạp dở mà chưa có trong cache
+    private final AtomicLong rescheduleEpoch = new AtomicLong();
+
+    public StudentScheduleIndex(ClassRegistrationsRepository regsRepo, PlatformTransactionManager txManager) {
+        this.regsRepo = regsRepo;
+        this.loadTx = new TransactionTemplate(txManager);
+        this.loadTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.loadTx.setReadOnly(true);
+    }
+
+    public WeeklyOccupancy get(Long studentId) {
+        Cached cached = byStudent.get(studentId);
+        if (cached != null) return cached.occupancy();
+
+        long seen = versions.getOrDefault(studentId, 0L);
+        long epoch = rescheduleEpoch.get();
+        // transaction riêng: không dùng snapshot REPEATABLE READ cũ của transaction đang gọi
+        WeeklyOccupancy loaded = loadTx.execute(s -> {
+            WeeklyOccupancy occ = WeeklyOccupancy.EMPTY;
+            for (StudentClassSlot r : regsRepo.findSlotsByStudentIds(List.of(studentId))) {
+                occ = occ.with(r.classId(), r.dayOfWeek(), r.slot());
+            }
+            return occ;
+        });
+
+        // compare-and-set theo version: có thay đổi commit trong lúc nạp → không cache (lần sau nạp lại)
+        byStudent.compute(studentId, (id, current) -> {
+            if (current != null) return current;
+            boolean unchanged = versions.getOrDefault(id, 0L) == seen && rescheduleEpoch.get() == epoch;
+            return unchanged ? new Cached(seen, loaded) : null;
+        });
+        return loaded;
+    }
+
+    public void onRegistered(Long studentId, ClassesEntity clazz) {
+        Long classId = clazz.getId();
+        int day = clazz.getDayOfWeek();
+        TimeSlot slot = clazz.slot();
+        AfterCommit.run(() -> apply(studentId, occ -> occ.with(classId, day, slot)));
+    }
+
+    public void onUnregistered(Long studentId, Long classId) {
+        AfterCommit.run(() -> apply(studentId, occ -> occ.without(classId)));
+    }
+
+    public void onMoved(Long studentId, Long fromClassId, ClassesEntity to) {
+        Long toId = to.getId();
+        int day = to.getDayOfWeek();
+        TimeSlot slot = to.slot();
+        AfterCommit.run(() -> apply(studentId, occ -> occ.without(fromClassId).with(toId, day, slot)));
+    }
+
+    /** Lớp đổi ngày/giờ → bỏ cache của mọi học sinh đang học lớp đó. */
+    public void onClassRescheduled(Long classId) {
+        AfterCommit.run(() -> {
+            rescheduleEpoch.incrementAndGet();
+            for (Long studentId : byStudent.keySet()) {
+                byStudent.compute(studentId, (id, current) -> {
+                    if (current == null || !current.occupancy().contains(classId)) return current;
+                    versions.put(id, current.version() + 1);
+                    return null;
+                });
+            }
+        });
+    }
+
+    // tăng version và sửa bản cache (nếu có) trong cùng 1 compute → bản nạp dở với version cũ không ghi đè được
+    private void apply(Long studentId, UnaryOperator<WeeklyOccupancy> change) {
+        byStudent.compute(studentId, (id, current) -> {
+            if (current == null) {
+                versions.merge(id, 1L, Long::sum);
+                return null;
+            }
+            long next = current.version() + 1;
+            versions.put(id, next);
+            return new Cached(next, change.apply(current.occupancy()));
+        });
+    }
+}
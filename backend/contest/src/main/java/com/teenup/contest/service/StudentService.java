@@ -2,6 +2,7 @@ package com.teenup.contest.service;
 
 import com.teenup.contest.dto.request.CreateStudentRequest;
 import com.teenup.contest.dto.request.UpdateStudentRequest;
+import com.teenup.contest.dto.response.CursorPage;
 import com.teenup.contest.dto.response.StudentClassItem;
 import com.teenup.contest.dto.response.StudentResponse;
 import com.teenup.contest.entity.ParentsEntity;
@@ -10,15 +11,19 @@ import com.teenup.contest.exception.*;
 import com.teenup.contest.mapper.ClassMapper;
 import com.teenup.contest.mapper.StudentMapper;
 import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.ClassWaitlistRepository;
 import com.teenup.contest.repository.ParentsRepository;
+import com.teenup.contest.repository.SessionUsagesRepository;
 import com.teenup.contest.repository.StudentsRepository;
 import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.support.KeysetPaging;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +34,11 @@ public class StudentService {
     private final ClassRegistrationsRepository regsRepo;
     private final StudentMapper mapper;
     private final ClassMapper classMapper;
+    private final ClassWaitlistRepository waitlistRepo;
+    private final SessionUsagesRepository usageRepo;
+    private final ClassRosterCache rosterCache;
+    private final KeysetPaging paging;
+    private final DirectorySearchIndex searchIndex;
 
     @Transactional
     public StudentResponse create(CreateStudentRequest req) {
@@ -39,6 +49,7 @@ public class StudentService {
         entity.setParent(parent);
 
         StudentsEntity saved = studentsRepo.save(entity);
+        searchIndex.onStudentsChanged(List.of(saved.getId()));
         return mapper.toResponse(saved);
     }
 
@@ -50,8 +61,12 @@ public class StudentService {
     }
 
     @Transactional(readOnly = true)
-    public List<StudentResponse> getAll() {
-        return mapper.toResponses(studentsRepo.findAll());
+    public CursorPage<StudentResponse> getAll(String cursor, Integer limit, boolean withParent) {
+        int size = paging.size(cursor, limit);
+        List<StudentResponse> rows = withParent
+                ? studentsRepo.findPageAfter(paging.after(cursor), paging.probe(size))
+                : studentsRepo.findPageAfterWithoutParent(paging.after(cursor), paging.probe(size));
+        return paging.page(rows, size, StudentResponse::id, Function.identity());
     }
 
     // ✅ Xoá học sinh có ràng buộc
@@ -70,8 +85,11 @@ public class StudentService {
             throw new StudentHasActiveSubscriptionsException(id);
         }
 
-        // 3) Xoá
+        // 3) Xoá (kèm các chỗ trong hàng chờ, sổ dùng buổi của các gói)
+        waitlistRepo.deleteByStudentId(id);
+        usageRepo.deleteByStudentId(id);
         studentsRepo.delete(student);
+        searchIndex.onStudentDeleted(id);
     }
 
     @Transactional
@@ -94,10 +112,19 @@ public class StudentService {
             entity.setParent(parent);
         }
 
+        // tên / khối của học sinh hiện trong danh sách các lớp đang học
+        rosterCache.evictClassesOf(id);
+        searchIndex.onStudentsChanged(List.of(id));
+
         // JPA dirty checking sẽ flush
         return mapper.toResponse(entity);
     }
 
+    /** Tìm học sinh theo tên (không dấu, index trong bộ nhớ). */
+    public List<StudentResponse> search(String q, int limit) {
+        return searchIndex.searchStudents(q, limit);
+    }
+
     // danh sách lớp của 1 học sinh
     @Transactional(readOnly = true)
     public List<StudentClassItem> listClasses(Long studentId) {
@@ -1,29 +1,53 @@
 package com.teenup.contest.service;
 
+import com.teenup.contest.dto.request.BulkExtendRequest;
 import com.teenup.contest.dto.request.CreateSubscriptionRequest;
 import com.teenup.contest.dto.request.ExtendSubscriptionRequest;
 import com.teenup.contest.dto.request.UpdateSubscriptionRequest;
+import com.teenup.contest.dto.response.BulkExtendItemResult;
+import com.teenup.contest.dto.response.BulkExtendResponse;
+import com.teenup.contest.dto.response.CursorPage;
 import com.teenup.contest.dto.response.SubscriptionResponse;
 import com.teenup.contest.entity.StudentsEntity;
+import com.teenup.contest.entity.SubscriptionStatus;
 import com.teenup.contest.entity.SubscriptionsEntity;
+import com.teenup.contest.entity.UsageReason;
 import com.teenup.contest.exception.*;
 import com.teenup.contest.mapper.SubscriptionMapper;
+import com.teenup.contest.repository.SessionUsagesRepository;
 import com.teenup.contest.repository.StudentsRepository;
 import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.repository.projection.SubscriptionTerms;
+import com.teenup.contest.support.KeysetPaging;
+import com.teenup.contest.support.RetryOnConflict;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SubscriptionService {
 
+    private static final String EXTENDED = "EXTENDED";
+    private static final int MAX_BULK_EXTEND = 1000;
+
     private final SubscriptionsRepository repo;
     private final StudentsRepository studentsRepo;
     private final SubscriptionMapper mapper;
+    private final KeysetPaging paging;
+    private final SessionUsageLedger ledger;
+    private final SessionUsagesRepository usageRepo;
 
     @Transactional
     public SubscriptionResponse create(CreateSubscriptionRequest req) {
@@ -36,27 +60,24 @@ public class SubscriptionService {
 
         SubscriptionsEntity entity = mapper.toEntity(req);
         entity.setStudent(student);
+        entity.refreshStatus(LocalDate.now(), 0);
 
         SubscriptionsEntity saved = repo.save(entity);
         return mapper.toResponse(saved);
     }
 
-    @Transactional
+    // Check-in = khoá dòng gói + 1 dòng sổ (INSERT), không UPDATE subscriptions → không đụng @Version / ETag
+    @RetryOnConflict
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public SubscriptionResponse useOne(Long id) {
-        SubscriptionsEntity s = repo.findById(id)
-                .orElseThrow(() -> new SubscriptionNotFoundException(id));
-
-        LocalDate today = LocalDate.now();
-        if (today.isBefore(s.getStartDate()) || today.isAfter(s.getEndDate())) {
-            throw new SubscriptionInactiveException(id);
-        }
-        if (s.getUsedSessions() >= s.getTotalSessions()) {
-            throw new NoRemainingSessionsException(id);
+        SessionUsageLedger.Reservation r = ledger.consume(id, LocalDate.now(), UsageReason.CHECK_IN);
+        switch (r.outcome()) {
+            case NOT_FOUND -> throw new SubscriptionNotFoundException(id);
+            case INACTIVE -> throw new SubscriptionInactiveException(id);
+            case EXHAUSTED -> throw new NoRemainingSessionsException(id);
+            case CONSUMED -> { }
         }
-
-        s.setUsedSessions(s.getUsedSessions() + 1);
-        // JPA dirty checking sẽ tự flush
-        return mapper.toResponse(s);
+        return repo.findResponseById(id).orElseThrow(() -> new SubscriptionNotFoundException(id));
     }
 
     @Transactional(readOnly = true)
@@ -67,15 +88,16 @@ public class SubscriptionService {
     }
 
     @Transactional(readOnly = true)
-    public List<SubscriptionResponse> list(Long studentId) {
-        List<SubscriptionsEntity> list = (studentId == null)
-                ? repo.findAll()
-                : repo.findByStudent_Id(studentId);
-        return list.stream().map(mapper::toResponse).toList();
+    public CursorPage<SubscriptionResponse> list(Long studentId, String cursor, Integer limit) {
+        int size = paging.size(cursor, limit);
+        List<SubscriptionsEntity> rows = repo.findPageAfter(studentId, paging.after(cursor), paging.probe(size));
+        return paging.page(rows, size, SubscriptionsEntity::getId, mapper::toResponse);
     }
 
-    @Transactional
+    // Khoá dòng gói như khi ghi sổ: totalSessions mới so với số đã dùng không bị check-in chen giữa
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public SubscriptionResponse update(Long id, UpdateSubscriptionRequest req) {
+        ledger.lock(List.of(id));
         SubscriptionsEntity s = repo.findById(id)
                 .orElseThrow(() -> new SubscriptionNotFoundException(id));
 
@@ -87,13 +109,14 @@ public class SubscriptionService {
         }
 
         Integer total = req.totalSessions() != null ? req.totalSessions() : s.getTotalSessions();
-        if (total != null && total < s.getUsedSessions()) {
+        if (total != null && total < s.currentUsedSessions()) {
             throw new BaseException(ErrorCode.SUBSCRIPTION_TOTAL_LT_USED,
-                    "totalSessions (" + total + ") < usedSessions hiện tại (" + s.getUsedSessions() + ")");
+                    "totalSessions (" + total + ") < usedSessions hiện tại (" + s.currentUsedSessions() + ")");
         }
 
         // map các field != null
         mapper.updateEntityFromDto(req, s);
+        s.refreshStatus(LocalDate.now(), s.currentUsedSessions());
 
         return mapper.toResponse(s); // dirty checking
     }
@@ -103,21 +126,26 @@ public class SubscriptionService {
         SubscriptionsEntity s = repo.findById(id)
                 .orElseThrow(() -> new SubscriptionNotFoundException(id));
 
-        if (s.getUsedSessions() != null && s.getUsedSessions() > 0) {
+        if (s.currentUsedSessions() > 0) {
             throw new BaseException(ErrorCode.SUBSCRIPTION_IN_USE,
-                    "Gói id=" + id + " đã dùng " + s.getUsedSessions() + " buổi");
+                    "Gói id=" + id + " đã dùng " + s.currentUsedSessions() + " buổi");
         }
+        usageRepo.deleteBySubscriptionId(id);
         repo.delete(s);
     }
 
 
-    @Transactional
+    @RetryOnConflict
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public SubscriptionResponse resetUsed(Long id) {
+        // ghi 1 dòng sổ delta = -đã dùng (đã commit, sau khi khoá gói), lịch sử trước đó vẫn giữ
+        if (!ledger.reset(id)) throw new SubscriptionNotFoundException(id);
         var s = repo.findById(id).orElseThrow(() -> new SubscriptionNotFoundException(id));
-        s.setUsedSessions(0);
-        return mapper.toResponse(s);
+        s.refreshStatus(LocalDate.now(), 0);
+        return repo.findResponseById(id).orElseThrow(() -> new SubscriptionNotFoundException(id));
     }
 
+    @RetryOnConflict
     @Transactional
     public SubscriptionResponse extend(Long id, ExtendSubscriptionRequest req) {
         var s = repo.findById(id).orElseThrow(() -> new SubscriptionNotFoundException(id));
@@ -131,9 +159,9 @@ public class SubscriptionService {
         if (req.addSessions() != null) {
             int newTotal = s.getTotalSessions() + req.addSessions();
             // totalSessions mới không cần so sánh với used (vì tăng) — nhưng để chặt chẽ, vẫn kiểm
-            if (newTotal < s.getUsedSessions()) {
+            if (newTotal < s.currentUsedSessions()) {
                 throw new BaseException(ErrorCode.SUBSCRIPTION_TOTAL_LT_USED,
-                        "totalSessions mới (" + newTotal + ") < usedSessions hiện tại (" + s.getUsedSessions() + ")");
+                        "totalSessions mới (" + newTotal + ") < usedSessions hiện tại (" + s.currentUsedSessions() + ")");
             }
             s.setTotalSessions(newTotal);
         }
@@ -151,6 +179,84 @@ public class SubscriptionService {
             s.setEndDate(newEnd);
         }
 
+        s.refreshStatus(LocalDate.now(), s.currentUsedSessions());
         return mapper.toResponse(s);
     }
+
+    // Gia hạn hàng loạt: 1 query chọn gói, kiểm tra trong bộ nhớ, 1 UPDATE cho cả nhóm hợp lệ,
+    // tính lại status theo lô rồi đọc lại hạn mới (không hydrate / dirty-check từng entity)
+    @RetryOnConflict
+    @Transactional
+    public BulkExtendResponse extendBatch(BulkExtendRequest req) {
+        if (req.addSessions() == null && req.endDate() == null) {
+            throw new BaseException(ErrorCode.SUBSCRIPTION_EXTEND_NO_PARAM, "Cần addSessions hoặc endDate");
+        }
+        boolean byIds = req.subscriptionIds() != null && !req.subscriptionIds().isEmpty();
+        if (byIds == req.hasFilter()) {
+            throw new BaseException(ErrorCode.VALIDATION_FAILED,
+                    "Cần đúng 1 cách chọn gói: subscriptionIds hoặc bộ lọc (packageName / endDateFrom / endDateTo)");
+        }
+
+        // 1) Gói được chọn
+        List<Long> ids;
+        Map<Long, SubscriptionTerms> terms;
+        if (byIds) {
+            ids = req.subscriptionIds().stream().distinct().toList();
+            terms = repo.findTermsByIds(ids).stream()
+                    .collect(Collectors.toMap(SubscriptionTerms::id, Function.identity()));
+        } else {
+            List<SubscriptionTerms> matched = repo.findTermsByFilter(req.packageName(), req.endDateFrom(),
+                    req.endDateTo(), Limit.of(MAX_BULK_EXTEND + 1));
+            if (matched.size() > MAX_BULK_EXTEND) {
+                throw new BaseException(ErrorCode.VALIDATION_FAILED,
+                        "Bộ lọc khớp hơn " + MAX_BULK_EXTEND + " gói, hãy thu hẹp khoảng endDate");
+            }
+            ids = matched.stream().map(SubscriptionTerms::id).toList();
+            terms = matched.stream().collect(Collectors.toMap(SubscriptionTerms::id, Function.identity()));
+        }
+
+        // 2) Kiểm tra từng gói trong bộ nhớ (cùng quy tắc với extend)
+        List<BulkExtendItemResult> items = new ArrayList<>(ids.size());
+        List<Long> accepted = new ArrayList<>();
+        for (Long id : ids) {
+            SubscriptionTerms t = terms.get(id);
+            if (t == null) {
+                items.add(rejectedItem(id, ErrorCode.SUBSCRIPTION_NOT_FOUND, ErrorCode.SUBSCRIPTION_NOT_FOUND.defaultMessage()));
+            } else if (req.endDate() != null && req.endDate().isBefore(t.startDate())) {
+                items.add(rejectedItem(id, ErrorCode.SUBSCRIPTION_INVALID_DATES, "endDate phải >= startDate"));
+            } else if (req.endDate() != null && req.endDate().isBefore(t.endDate())) {
+                items.add(rejectedItem(id, ErrorCode.SUBSCRIPTION_INVALID_DATES, "endDate mới phải >= endDate hiện tại"));
+            } else {
+                accepted.add(id);
+                items.add(null); // điền sau khi đọc lại hạn mới
+            }
+        }
+        if (accepted.isEmpty()) {
+            return new BulkExtendResponse(items.size(), 0, items.size(), items);
+        }
+
+        // 3) 1 UPDATE; lệch số dòng = có gói bị sửa / xoá sau bước kiểm tra → rollback, @RetryOnConflict chạy lại
+        int add = req.addSessions() != null ? req.addSessions() : 0;
+        if (repo.extendAll(accepted, add, req.endDate(), Instant.now()) != accepted.size()) {
+            throw new ConcurrencyFailureException("Subscriptions changed during bulk extend");
+        }
+        LocalDate today = LocalDate.now();
+        for (SubscriptionStatus target : SubscriptionStatus.values()) {
+            repo.updateStatus(accepted, today, target, target.expired(), target.exhausted());
+        }
+
+        // 4) Hạn mới cho kết quả
+        Map<Long, SubscriptionTerms> updated = repo.findTermsByIds(accepted).stream()
+                .collect(Collectors.toMap(SubscriptionTerms::id, Function.identity()));
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) != null) continue;
+            SubscriptionTerms t = updated.get(ids.get(i));
+            items.set(i, new BulkExtendItemResult(t.id(), EXTENDED, t.totalSessions(), t.endDate(), null));
+        }
+        return new BulkExtendResponse(items.size(), accepted.size(), items.size() - accepted.size(), items);
+    }
+
+    private static BulkExtendItemResult rejectedItem(Long id, ErrorCode ec, String message) {
+        return new BulkExtendItemResult(id, ec.code(), null, null, message);
+    }
 }
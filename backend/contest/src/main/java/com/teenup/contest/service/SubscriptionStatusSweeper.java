@@ -0,0 +1,106 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.entity.SubscriptionStatus;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quét định kỳ các gói chưa CLOSED theo lô keyset (id tăng dần), cập nhật subscriptions.status khi gói
+ * hết hạn / hết buổi (hoặc sửa lại nếu lệch) để kiểm tra "còn gói hiệu lực" chỉ cần đọc cột status.
+ *
+ * Metrics: app.subscriptions.sweep (thời gian 1 lượt), app.subscriptions.sweep.scanned (số gói đã quét),
+ * app.subscriptions.sweep.flagged (số gói đổi trạng thái, tag status), app.subscriptions.sweep.cursor
+ * (id cuối của lô vừa xong trong lượt đang chạy, 0 khi rảnh).
+ */
+@Slf4j
+@Component
+public class SubscriptionStatusSweeper {
+
+    private final SubscriptionsRepository repo;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    private final Timer passTimer;
+    private final Counter scanned;
+    private final Map<SubscriptionStatus, Counter> flagged = new EnumMap<>(SubscriptionStatus.class);
+    private final AtomicLong cursor = new AtomicLong();
+
+    public SubscriptionStatusSweeper(SubscriptionsRepository repo,
+                                     PlatformTransactionManager txManager,
+                                     MeterRegistry meters,
+                                     @Value("${app.subscriptions.sweep-chunk:500}") int chunkSize) {
+        this.repo = repo;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.chunkSize = chunkSize;
+
+        this.passTimer = Timer.builder("app.subscriptions.sweep").register(meters);
+        this.scanned = Counter.builder("app.subscriptions.sweep.scanned").register(meters);
+        for (SubscriptionStatus st : SubscriptionStatus.values()) {
+            flagged.put(st, Counter.builder("app.subscriptions.sweep.flagged").tag("status", st.name()).register(meters));
+        }
+        Gauge.builder("app.subscriptions.sweep.cursor", cursor, AtomicLong::get).register(meters);
+    }
+
+    @Scheduled(fixedDelayString = "${app.subscriptions.sweep-interval:PT15M}")
+    public void sweep() {
+        passTimer.record(this::sweepAll);
+    }
+
+    private void sweepAll() {
+        LocalDate today = LocalDate.now();
+        AtomicInteger changed = new AtomicInteger();
+        long after = 0;
+        List<Long> ids;
+        try {
+            do {
+                long from = after;
+                // mỗi lô 1 transaction ngắn; khoá dòng như sổ dùng buổi để số buổi đọc trong UPDATE là số đã commit
+                ids = tx.execute(s -> {
+                    List<Long> batch = repo.findOpenIdsAfter(from, Limit.of(chunkSize));
+                    if (!batch.isEmpty()) {
+                        repo.lockForUsage(batch);
+                        changed.addAndGet(flag(batch, today));
+                    }
+                    return batch;
+                });
+                if (ids.isEmpty()) break;
+                scanned.increment(ids.size());
+                after = ids.get(ids.size() - 1);
+                cursor.set(after);
+            } while (ids.size() == chunkSize);
+        } finally {
+            cursor.set(0);
+        }
+
+        if (changed.get() > 0) log.info("[SubscriptionSweep] Cập nhật trạng thái {} gói", changed.get());
+    }
+
+    private int flag(List<Long> ids, LocalDate today) {
+        int n = 0;
+        for (SubscriptionStatus target : SubscriptionStatus.values()) {
+            int updated = repo.updateStatus(ids, today, target, target.expired(), target.exhausted());
+            flagged.get(target).increment(updated);
+            n += updated;
+        }
+        return n;
+    }
+}
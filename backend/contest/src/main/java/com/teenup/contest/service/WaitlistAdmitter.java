@@ -0,0 +1,113 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.request.RegisterRequest;
+import com.teenup.contest.entity.ClassWaitlistEntity;
+import com.teenup.contest.exception.BaseException;
+import com.teenup.contest.exception.ClassFullException;
+import com.teenup.contest.exception.ErrorCode;
+import com.teenup.contest.repository.ClassWaitlistRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Xếp chỗ bất đồng bộ cho hàng chờ khi lớp có chỗ trống.
+ * Mỗi người được đăng ký qua đúng luồng register (giữ chỗ + kiểm tra trùng lịch tại thời điểm xếp).
+ * Người đang trùng lịch được giữ lại trong hàng (bỏ qua ở lượt này, xét lại khi lớp có chỗ lần sau).
+ */
+@Slf4j
+@Component
+public class WaitlistAdmitter {
+
+    private final ClassWaitlistRepository waitlistRepo;
+    private final ClassRegistrationService registrationService;
+    private final TransactionTemplate tx;
+
+    // 1 luồng xếp chỗ / lớp: lớp đang được xếp → số yêu cầu xếp đã nhận. Xếp xong thì bỏ key (map chỉ chứa lớp
+    // đang chạy); yêu cầu đến trong lúc đang xếp chỉ tăng số đếm để luồng đang chạy xếp thêm 1 vòng.
+    private final ConcurrentMap<Long, AtomicInteger> running = new ConcurrentHashMap<>();
+
+    public WaitlistAdmitter(ClassWaitlistRepository waitlistRepo,
+                            ClassRegistrationService registrationService,
+                            PlatformTransactionManager txManager) {
+        this.waitlistRepo = waitlistRepo;
+        this.registrationService = registrationService;
+        this.tx = new TransactionTemplate(txManager);
+        // register khoá học sinh rồi kiểm tra trùng lịch trên dữ liệu đã commit
+        this.tx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatsFreed(SeatsFreedEvent event) {
+        admit(event.classId());
+    }
+
+    public void admit(Long classId) {
+        AtomicInteger[] owned = new AtomicInteger[1];
+        running.compute(classId, (id, requests) -> {
+            if (requests != null) {
+                requests.incrementAndGet();
+                return requests;
+            }
+            owned[0] = new AtomicInteger();
+            return owned[0];
+        });
+        if (owned[0] == null) return; // luồng khác đang xếp lớp này
+
+        AtomicInteger requests = owned[0];
+        while (true) {
+            int seen = requests.get();
+            try {
+                admitRound(classId);
+            } catch (RuntimeException ex) {
+                log.error("[Waitlist] Lỗi khi đọc hàng chờ lớp {}", classId, ex);
+            }
+            // không có yêu cầu mới trong lúc xếp → bỏ key; có → xếp thêm 1 vòng
+            if (running.computeIfPresent(classId, (id, r) -> r.get() == seen ? null : r) == null) return;
+        }
+    }
+
+    private void admitRound(Long classId) {
+        long after = 0;
+        while (true) {
+            ClassWaitlistEntity head = waitlistRepo.findFirstByClazzIdAndIdGreaterThanOrderByIdAsc(classId, after)
+                    .orElse(null);
+            if (head == null) return;
+            Long studentId = head.getStudent().getId();
+            after = head.getId();
+
+            try {
+                tx.executeWithoutResult(s -> {
+                    registrationService.register(classId, new RegisterRequest(studentId));
+                    waitlistRepo.deleteById(head.getId());
+                });
+                log.info("[Waitlist] Xếp chỗ học sinh {} vào lớp {}", studentId, classId);
+            } catch (ClassFullException ex) {
+                return; // hết chỗ → chờ lần giải phóng chỗ tiếp theo
+            } catch (BaseException ex) {
+                if (ex.getErrorCode() == ErrorCode.SCHEDULE_CONFLICT) {
+                    // trùng lịch có thể hết khi học sinh huỷ lớp kia → giữ chỗ trong hàng, xét người kế
+                    log.info("[Waitlist] Giữ học sinh {} trong hàng chờ lớp {} (trùng lịch): {}",
+                            studentId, classId, ex.getMessage());
+                    continue;
+                }
+                // đã đăng ký / học sinh không còn → bỏ khỏi hàng chờ, xét người kế
+                waitlistRepo.deleteById(head.getId());
+                log.info("[Waitlist] Bỏ học sinh {} khỏi hàng chờ lớp {}: {}", studentId, classId, ex.getMessage());
+            } catch (RuntimeException ex) {
+                // lỗi ngoài dự kiến (DB, ...) → dừng lượt này, người đó vẫn đứng trong hàng cho lần sau
+                log.error("[Waitlist] Lỗi khi xếp học sinh {} vào lớp {}", studentId, classId, ex);
+                return;
+            }
+        }
+    }
+}
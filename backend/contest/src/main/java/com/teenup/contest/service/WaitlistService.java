@@ -0,0 +1,73 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.response.WaitlistEntryResponse;
+import com.teenup.contest.entity.ClassWaitlistEntity;
+import com.teenup.contest.entity.ClassesEntity;
+import com.teenup.contest.entity.StudentsEntity;
+import com.teenup.contest.exception.*;
+import com.teenup.contest.exception.ClassNotFoundException;
+import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.ClassWaitlistRepository;
+import com.teenup.contest.repository.ClassesRepository;
+import com.teenup.contest.repository.StudentsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+
+    private final ClassWaitlistRepository waitlistRepo;
+    private final ClassesRepository classRepo;
+    private final StudentsRepository studentRepo;
+    private final ClassRegistrationsRepository regRepo;
+    private final ApplicationEventPublisher events;
+
+    /** Xếp học sinh vào hàng chờ; gọi lại khi đã có trong hàng thì trả vị trí hiện tại. */
+    @Transactional
+    public WaitlistEntryResponse join(Long classId, Long studentId) {
+        ClassesEntity clazz = classRepo.findById(classId)
+                .orElseThrow(() -> new ClassNotFoundException(classId));
+        StudentsEntity student = studentRepo.findById(studentId)
+                .orElseThrow(() -> new StudentNotFoundException(studentId));
+
+        if (regRepo.existsByClazzIdAndStudentId(classId, studentId)) {
+            throw new AlreadyRegisteredException(classId, studentId);
+        }
+
+        ClassWaitlistEntity entry = waitlistRepo.findByClazzIdAndStudentId(classId, studentId)
+                .orElseGet(() -> waitlistRepo.save(new ClassWaitlistEntity(clazz, student)));
+
+        // lớp vẫn còn chỗ (vd: vừa có người rời) → để admitter xếp chỗ ngay
+        if (clazz.getRegisteredCount() < clazz.getMaxStudents()) {
+            events.publishEvent(new SeatsFreedEvent(classId));
+        }
+        return new WaitlistEntryResponse(classId, studentId, student.getName(),
+                waitlistRepo.positionOf(classId, entry.getId()), entry.getCreatedAt());
+    }
+
+    @Transactional(readOnly = true)
+    public List<WaitlistEntryResponse> list(Long classId) {
+        if (!classRepo.existsById(classId)) throw new ClassNotFoundException(classId);
+
+        List<WaitlistEntryResponse> out = new ArrayList<>();
+        for (ClassWaitlistEntity w : waitlistRepo.findAllByClassIdWithStudent(classId)) {
+            out.add(new WaitlistEntryResponse(classId, w.getStudent().getId(), w.getStudent().getName(),
+                    out.size() + 1, w.getCreatedAt()));
+        }
+        return out;
+    }
+
+    @Transactional
+    public void leave(Long classId, Long studentId) {
+        ClassWaitlistEntity entry = waitlistRepo.findByClazzIdAndStudentId(classId, studentId)
+                .orElseThrow(() -> new BaseException(ErrorCode.WAITLIST_ENTRY_NOT_FOUND,
+                        "Học sinh " + studentId + " không có trong hàng chờ lớp " + classId));
+        waitlistRepo.delete(entry);
+    }
+}
@@ -0,0 +1,90 @@
+package com.teenup.contest.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenup.contest.entity.IdempotencyKeyEntity;
+import com.teenup.contest.exception.BaseException;
+import com.teenup.contest.exception.ErrorCode;
+import com.teenup.contest.repository.IdempotencyKeysRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+
+/**
+ * Store dùng bảng idempotency_keys, cho triển khai nhiều node.
+ * Key đang được node khác xử lý → 409 IDEMPOTENCY_IN_PROGRESS, client thử lại sau.
+ * Key giữ quá app.idempotency.lease mà chưa xong (node chết trước khi ghi kết quả) thì được giành lại.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyKeysRepository repo;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+
+    public DatabaseIdempotencyStore(IdempotencyKeysRepository repo,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                                    @Value("${app.idempotency.lease:PT30S}") Duration lease) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.lease = lease;
+    }
+
+    @Override
+    public <T> T execute(String key, Class<T> type, Supplier<T> action) {
+        // làm tròn giây: giá trị lưu vào created_at và giá trị so sánh trong complete / release luôn bằng nhau
+        Instant claimedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        if (repo.claim(key, claimedAt) == 0 && repo.reclaimStale(key, claimedAt, claimedAt.minus(lease)) == 0) {
+            IdempotencyKeyEntity stored = repo.findById(key).orElse(null);
+            if (stored == null || !stored.isCompleted()) {
+                throw new BaseException(ErrorCode.IDEMPOTENCY_IN_PROGRESS);
+            }
+            return read(stored.getResponseBody(), type);
+        }
+
+        try {
+            T result = action.get();
+            if (repo.complete(key, write(result), claimedAt) == 0) {
+                log.warn("[Idempotency] Key {} đã bị giành lại sau lease {}, không lưu kết quả", key, lease);
+            }
+            return result;
+        } catch (RuntimeException ex) {
+            repo.release(key, claimedAt);
+            throw ex;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:PT10M}")
+    public void purgeExpired() {
+        int removed = repo.deleteCreatedBefore(Instant.now().minus(ttl));
+        if (removed > 0) log.debug("[Idempotency] Xoá {} key hết hạn", removed);
+    }
+
+    private String write(Object value) {
+        try {
+            return value == null ? null : objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Không serialize được kết quả idempotent", ex);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return body == null ? null : objectMapper.readValue(body, type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Không đọc được kết quả idempotent đã lưu", ex);
+        }
+    }
+}
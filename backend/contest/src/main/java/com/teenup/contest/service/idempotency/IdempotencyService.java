@@ -0,0 +1,59 @@
+package com.teenup.contest.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teenup.contest.exception.BaseException;
+import com.teenup.contest.exception.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Header Idempotency-Key cho các API ghi mà client di động hay retry khi timeout.
+ * Key được gắn với scope (endpoint + tham số) để cùng key trên request khác không đụng nhau.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+
+    public <T> T execute(String idempotencyKey, String scope, Class<T> type, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BaseException(ErrorCode.VALIDATION_FAILED,
+                    HEADER + " tối đa " + MAX_KEY_LENGTH + " ký tự");
+        }
+        return store.execute(scope + "|" + idempotencyKey, type, action);
+    }
+
+    /**
+     * Scope cho endpoint mà path không xác định đủ thao tác (body là danh sách / bộ lọc): gắn thêm SHA-256 của body,
+     * cùng key nhưng body khác → chạy như request mới thay vì nhận lại kết quả của body cũ.
+     */
+    public String scopeWithBody(String scope, Object body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body));
+            return scope + ":" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Không băm được body cho idempotency scope", ex);
+        }
+    }
+
+    public void execute(String idempotencyKey, String scope, Runnable action) {
+        execute(idempotencyKey, scope, Void.class, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
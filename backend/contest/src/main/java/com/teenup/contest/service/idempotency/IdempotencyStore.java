@@ -0,0 +1,12 @@
+package com.teenup.contest.service.idempotency;
+
+import java.util.function.Supplier;
+
+/**
+ * Lưu kết quả theo Idempotency-Key: lần đầu chạy action, các lần gọi lại trả kết quả đã lưu.
+ * Action lỗi thì không lưu để client có thể thử lại.
+ */
+public interface IdempotencyStore {
+
+    <T> T execute(String key, Class<T> type, Supplier<T> action);
+}
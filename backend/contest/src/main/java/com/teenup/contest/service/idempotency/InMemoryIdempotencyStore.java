@@ -0,0 +1,56 @@
+package com.teenup.contest.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Store mặc định (1 node): cache giới hạn số phần tử + TTL.
+ * Request trùng key đến khi lần đầu còn đang chạy sẽ chờ và nhận cùng kết quả.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, CompletableFuture<Object>> results;
+
+    public InMemoryIdempotencyStore(@Value("${app.idempotency.ttl:PT24H}") Duration ttl,
+                                    @Value("${app.idempotency.max-entries:10000}") long maxEntries) {
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    @Override
+    public <T> T execute(String key, Class<T> type, Supplier<T> action) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = results.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return type.cast(existing.join());
+            } catch (CompletionException ex) {
+                // lần đầu lỗi: trả cùng lỗi cho request đang chờ (key đã bị gỡ, lần sau sẽ chạy lại)
+                if (ex.getCause() instanceof RuntimeException re) throw re;
+                throw ex;
+            }
+        }
+
+        try {
+            T result = action.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            results.asMap().remove(key, mine);
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.teenup.contest.support;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * GET có điều kiện: gắn ETag vào response; If-None-Match khớp → 304 (handler trả null, không đọc/serialize body).
+ *
+ * ETag là của đúng biểu diễn trả về: phiên bản dữ liệu + query string (cursor, limit, fields, ...) + định dạng
+ * (JSON / CBOR) nên trang khác / trường khác / định dạng khác không nhận nhầm 304. Response có Vary: Accept.
+ */
+public final class ConditionalGet {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private ConditionalGet() {}
+
+    /** etag = null (bản ghi không tồn tại) → bỏ qua, để handler xử lý như thường. */
+    public static boolean notModified(WebRequest request, String etag) {
+        if (request instanceof ServletWebRequest swr && swr.getResponse() != null) {
+            swr.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return etag != null && request.checkNotModified(variantOf(request, etag));
+    }
+
+    // JSON không kèm tham số giữ nguyên tag cũ; còn lại nối thêm băm của query string + định dạng
+    private static String variantOf(WebRequest request, String etag) {
+        String format = negotiatedFormat(request.getHeader(HttpHeaders.ACCEPT));
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        if (params.isEmpty() && format.equals("json")) return etag;
+
+        StringBuilder variant = new StringBuilder(format);
+        params.forEach((name, values) -> variant.append('&').append(name).append('=').append(Arrays.toString(values)));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(variant.toString().getBytes(StandardCharsets.UTF_8));
+            return etag + "-" + HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // cùng thứ tự ưu tiên với các converter: gặp application/cbor trước JSON thì trả CBOR, còn lại JSON
+    private static String negotiatedFormat(String accept) {
+        if (accept == null) return "json";
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.equalsTypeAndSubtype(CBOR)) return "cbor";
+                if (type.includes(MediaType.APPLICATION_JSON)) return "json";
+            }
+        } catch (InvalidMediaTypeException ignored) {
+            // Accept hỏng: để content negotiation báo lỗi như thường
+        }
+        return "json";
+    }
+}
@@ -0,0 +1,87 @@
+package com.teenup.contest.support;
+
+import com.teenup.contest.dto.response.CursorPage;
+import com.teenup.contest.exception.BaseException;
+import com.teenup.contest.exception.ErrorCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Phân trang keyset theo id tăng dần: "WHERE id > :afterId ORDER BY id LIMIT size + 1".
+ * Cursor gửi cho client là chuỗi mờ (base64url của id cuối trang), client chỉ việc gửi lại.
+ */
+@Component
+public class KeysetPaging {
+
+    /** Header trả cursor của trang kế tiếp (không có = trang cuối). */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** Kích thước "trang" khi client không yêu cầu phân trang. */
+    public static final int UNPAGED = Integer.MAX_VALUE;
+
+    private static final String PREFIX = "id:";
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public KeysetPaging(@Value("${app.pagination.default-size:100}") int defaultSize,
+                        @Value("${app.pagination.max-size:500}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    /** Số dòng của trang (mặc định / chặn trần theo cấu hình). */
+    public int size(Integer requested) {
+        if (requested == null) return defaultSize;
+        if (requested < 1) throw new BaseException(ErrorCode.VALIDATION_FAILED, "limit phải >= 1");
+        return Math.min(requested, maxSize);
+    }
+
+    /** Không truyền cursor lẫn limit → không phân trang (trả hết như trước), ngược lại như {@link #size(Integer)}. */
+    public int size(String cursor, Integer limit) {
+        return cursor != null || limit != null ? size(limit) : UNPAGED;
+    }
+
+    /** Lấy dư 1 dòng để biết còn trang sau hay không. */
+    public Limit probe(int size) {
+        return size == UNPAGED ? Limit.unlimited() : Limit.of(size + 1);
+    }
+
+    /** id cuối của trang trước (0 = từ đầu). */
+    public long after(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) throw new IllegalArgumentException(raw);
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new BaseException(ErrorCode.VALIDATION_FAILED, "cursor không hợp lệ");
+        }
+    }
+
+    public <E, T> CursorPage<T> page(List<E> rows, int size, Function<E, Long> idOf, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? encode(idOf.apply(pageRows.get(size - 1))) : null;
+        return new CursorPage<>(pageRows.stream().map(mapper).toList(), next);
+    }
+
+    /** Body giữ dạng mảng như cũ; cursor trang sau nằm ở header {@value #NEXT_CURSOR_HEADER}. */
+    public static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        var res = ResponseEntity.ok();
+        if (page.nextCursor() != null) res.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        return res.body(page.items());
+    }
+
+    private static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+}
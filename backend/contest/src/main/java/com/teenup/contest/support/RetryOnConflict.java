@@ -0,0 +1,24 @@
+package com.teenup.contest.support;
+
+import java.lang.annotation.*;
+
+/**
+ * Tự chạy lại method (kèm transaction của nó) khi gặp xung đột ghi đồng thời
+ * ({@link org.springframework.dao.ConcurrencyFailureException}: optimistic lock, deadlock, lock timeout).
+ * Backoff luỹ thừa có jitter, tối đa {@link #maxAttempts()} lần; hết lượt thì ném lỗi gốc (→ 409).
+ * Đặt trên class = áp dụng cho mọi method public.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+    /** Tổng số lần chạy (gồm lần đầu). */
+    int maxAttempts() default 3;
+
+    /** Mốc backoff cho lần retry đầu (ms), nhân đôi mỗi lần. */
+    long backoffMillis() default 20;
+
+    /** Trần backoff (ms). */
+    long maxBackoffMillis() default 200;
+}
@@ -0,0 +1,81 @@
+package com.teenup.contest.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Thực thi {@link RetryOnConflict}. Chạy NGOÀI @Transactional (order cao hơn) để mỗi lần thử là 1 transaction mới.
+ * Đang ở trong transaction của caller thì không retry (transaction ngoài đã bị đánh dấu rollback) – để caller xử lý.
+ *
+ * Metrics: app.retry.attempts (số lần chạy lại), app.retry.recovered (thành công sau retry),
+ * app.retry.exhausted (hết lượt) – tag method=Class.method.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class RetryOnConflictAspect {
+
+    private final MeterRegistry meters;
+
+    @Around("@within(com.teenup.contest.support.RetryOnConflict) || @annotation(com.teenup.contest.support.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint pjp) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+
+        MethodSignature sig = (MethodSignature) pjp.getSignature();
+        RetryOnConflict cfg = AnnotatedElementUtils.findMergedAnnotation(sig.getMethod(), RetryOnConflict.class);
+        if (cfg == null) {
+            cfg = AnnotatedElementUtils.findMergedAnnotation(pjp.getTarget().getClass(), RetryOnConflict.class);
+        }
+        String name = sig.getDeclaringType().getSimpleName() + "." + sig.getName();
+
+        int attempt = 1;
+        while (true) {
+            try {
+                Object result = pjp.proceed();
+                if (attempt > 1) counter("app.retry.recovered", name).increment();
+                return result;
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= cfg.maxAttempts()) {
+                    counter("app.retry.exhausted", name).increment();
+                    log.warn("[Retry] {} vẫn xung đột sau {} lần: {}", name, attempt, ex.getMessage());
+                    throw ex;
+                }
+                counter("app.retry.attempts", name).increment();
+                sleep(backoff(cfg, attempt));
+                attempt++;
+            }
+        }
+    }
+
+    // full jitter: ngẫu nhiên trong [0, min(trần, mốc * 2^(lần-1))]
+    private static long backoff(RetryOnConflict cfg, int attempt) {
+        long cap = Math.min(cfg.maxBackoffMillis(), cfg.backoffMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) Thread.sleep(millis);
+    }
+
+    private Counter counter(String metric, String method) {
+        return Counter.builder(metric).tag("method", method).register(meters);
+    }
+}
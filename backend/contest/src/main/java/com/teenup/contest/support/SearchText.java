@@ -0,0 +1,36 @@
+package com.teenup.contest.support;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Chuẩn hoá chuỗi để tìm kiếm: bỏ dấu tiếng Việt (kể cả đ/Đ), chữ thường,
+ * ký tự không phải chữ/số (trừ @ . _ + -) thành khoảng trắng, gộp khoảng trắng.
+ * "Nguyễn Văn Đức" → "nguyen van duc".
+ */
+public final class SearchText {
+
+    private SearchText() {}
+
+    public static String normalize(String raw) {
+        if (raw == null || raw.isBlank()) return "";
+        String decomposed = Normalizer.normalize(raw, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true; // bỏ khoảng trắng đầu chuỗi
+        for (int i = 0; i < decomposed.length(); i++) {
+            char ch = decomposed.charAt(i);
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) continue;
+            if (ch == 'đ' || ch == 'Đ') ch = 'd';
+            if (Character.isLetterOrDigit(ch) || "@._+-".indexOf(ch) >= 0) {
+                sb.append(Character.toLowerCase(ch));
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
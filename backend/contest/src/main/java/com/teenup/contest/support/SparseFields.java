@@ -0,0 +1,87 @@
+package com.teenup.contest.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldset từ query `?fields=id,name,students.id`.
+ * Tên lồng nhau viết bằng dấu chấm; chọn 1 object (vd `parent`) là lấy cả object đó.
+ * Không truyền `fields` → giữ nguyên mọi thuộc tính.
+ */
+public final class SparseFields {
+
+    public static final String PARAM = "fields";
+    public static final String FILTER_ID = "sparseFields";
+
+    private static final SparseFields ALL = new SparseFields(Set.of());
+
+    private final Set<String> paths;
+
+    private SparseFields(Set<String> paths) {
+        this.paths = paths;
+    }
+
+    public static SparseFields parse(String raw) {
+        if (raw == null || raw.isBlank()) return ALL;
+        Set<String> paths = Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        return paths.isEmpty() ? ALL : new SparseFields(paths);
+    }
+
+    public boolean isAll() {
+        return paths.isEmpty();
+    }
+
+    /** `path` có cần ghi ra không: được chọn trực tiếp, là cha của 1 trường được chọn, hoặc nằm trong object được chọn. */
+    public boolean includes(String path) {
+        if (paths.isEmpty() || paths.contains(path)) return true;
+        for (String p : paths) {
+            if (p.startsWith(path) && p.length() > path.length() && p.charAt(path.length()) == '.') return true;
+        }
+        for (int i = path.lastIndexOf('.'); i > 0; i = path.lastIndexOf('.', i - 1)) {
+            if (paths.contains(path.substring(0, i))) return true;
+        }
+        return false;
+    }
+
+    public PropertyFilter filter() {
+        return isAll() ? SimpleBeanPropertyFilter.serializeAll() : new Filter(this);
+    }
+
+    private static final class Filter extends SimpleBeanPropertyFilter {
+        private final SparseFields fields;
+
+        Filter(SparseFields fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer)
+                throws Exception {
+            if (fields.includes(path(gen.getOutputContext(), writer.getName()))) {
+                writer.serializeAsField(pojo, gen, provider);
+            } else if (!gen.canOmitFields()) {
+                writer.serializeAsOmittedField(pojo, gen, provider);
+            }
+        }
+
+        // Đường dẫn của thuộc tính: tên các field chứa object hiện tại (bỏ qua cấp mảng) + tên thuộc tính
+        private static String path(JsonStreamContext ctx, String name) {
+            StringBuilder sb = new StringBuilder(name);
+            for (JsonStreamContext c = ctx.getParent(); c != null; c = c.getParent()) {
+                if (c.inObject() && c.getCurrentName() != null) sb.insert(0, '.').insert(0, c.getCurrentName());
+            }
+            return sb.toString();
+        }
+    }
+}
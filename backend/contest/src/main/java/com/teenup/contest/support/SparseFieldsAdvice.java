@@ -0,0 +1,25 @@
+package com.teenup.contest.support;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/** Áp `?fields=` lên mọi response JSON của API (chỉ ghi ra các thuộc tính được chọn). */
+@RestControllerAdvice
+public class SparseFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue body, MediaType contentType, MethodParameter returnType,
+                                           ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servlet)) return;
+        SparseFields fields = SparseFields.parse(servlet.getServletRequest().getParameter(SparseFields.PARAM));
+        if (fields.isAll()) return;
+        body.setFilters(new SimpleFilterProvider().addFilter(SparseFields.FILTER_ID, fields.filter()));
+    }
+}
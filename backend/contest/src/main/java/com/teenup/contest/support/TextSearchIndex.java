@@ -0,0 +1,128 @@
+package com.teenup.contest.support;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index tìm kiếm trong bộ nhớ theo id:
+ * - từ khoá >= 3 ký tự: giao các posting list trigram rồi kiểm lại bằng contains (khớp chuỗi con);
+ * - từ khoá 1–2 ký tự: posting list theo tiền tố của từng từ.
+ * Ghi (put/remove) phải được đồng bộ từ bên ngoài; đọc không khoá.
+ * Xếp hạng: khớp đầu trường chính > khớp đầu 1 từ > khớp giữa từ; cùng hạng → trường chính ngắn hơn, id nhỏ hơn.
+ */
+public final class TextSearchIndex<T> {
+
+    private static final int GRAM = 3;
+    // ngăn cách các trường để trigram / contains không khớp vắt qua 2 trường
+    private static final char FIELD_SEPARATOR = '|';
+
+    private record Doc<T>(String primary, String text, Set<String> keys, T value) {}
+
+    private final Map<Long, Doc<T>> docs = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    /** Thêm / thay thế tài liệu; `primary` là trường chính (tên) dùng để xếp hạng. */
+    public void put(Long id, T value, String primary, String... others) {
+        remove(id);
+        String p = SearchText.normalize(primary);
+        StringBuilder text = new StringBuilder(p);
+        for (String o : others) {
+            String n = SearchText.normalize(o);
+            if (!n.isEmpty()) text.append(FIELD_SEPARATOR).append(n);
+        }
+        String t = text.toString();
+        Set<String> keys = keysOf(t);
+        docs.put(id, new Doc<>(p, t, keys, value));
+        for (String k : keys) postings.computeIfAbsent(k, x -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    public void remove(Long id) {
+        Doc<T> old = docs.remove(id);
+        if (old == null) return;
+        for (String k : old.keys) {
+            Set<Long> ids = postings.get(k);
+            if (ids == null) continue;
+            ids.remove(id);
+            if (ids.isEmpty()) postings.remove(k, ids);
+        }
+    }
+
+    public void clear() {
+        docs.clear();
+        postings.clear();
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    public List<T> search(String query, int limit) {
+        String q = SearchText.normalize(query);
+        if (q.isEmpty() || limit <= 0) return List.of();
+
+        List<Long> candidates = q.length() < GRAM ? prefixCandidates(q) : gramCandidates(q);
+        List<Map.Entry<Integer, Doc<T>>> ranked = new ArrayList<>();
+        for (Long id : candidates) {
+            Doc<T> d = docs.get(id);
+            if (d == null) continue;
+            int rank = rank(d, q);
+            if (rank >= 0) ranked.add(Map.entry(rank, d));
+        }
+        ranked.sort(Comparator.<Map.Entry<Integer, Doc<T>>>comparingInt(Map.Entry::getKey)
+                .thenComparingInt(e -> e.getValue().primary.length())
+                .thenComparing(e -> e.getValue().primary));
+        List<T> out = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) out.add(ranked.get(i).getValue().value);
+        return out;
+    }
+
+    // -1 = không khớp
+    private static int rank(Doc<?> d, String q) {
+        if (d.primary.startsWith(q)) return 0;
+        int at = d.text.indexOf(q);
+        if (at < 0) return -1;
+        char before = at == 0 ? ' ' : d.text.charAt(at - 1);
+        return (before == ' ' || before == FIELD_SEPARATOR) ? 1 : 2;
+    }
+
+    private List<Long> gramCandidates(String q) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            Set<Long> ids = postings.get(gramKey(q.substring(i, i + GRAM)));
+            if (ids == null) return List.of();
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        List<Long> out = new ArrayList<>();
+        outer:
+        for (Long id : lists.get(0)) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) continue outer;
+            }
+            out.add(id);
+        }
+        return out;
+    }
+
+    private List<Long> prefixCandidates(String q) {
+        Set<Long> ids = postings.get(prefixKey(q));
+        return ids == null ? List.of() : new ArrayList<>(ids);
+    }
+
+    private static Set<String> keysOf(String text) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) keys.add(gramKey(text.substring(i, i + GRAM)));
+        for (String token : text.split("[ |]+")) {
+            for (int len = 1; len < GRAM && len <= token.length(); len++) keys.add(prefixKey(token.substring(0, len)));
+        }
+        return keys;
+    }
+
+    private static String gramKey(String gram) {
+        return "g:" + gram;
+    }
+
+    private static String prefixKey(String prefix) {
+        return "p:" + prefix;
+    }
+}
@@ -0,0 +1,26 @@
+package com.teenup.contest.support;
+
+/**
+ * Khung giờ "HH:mm-HH:mm" quy về phút trong ngày, nửa mở [start, end).
+ */
+public record TimeSlot(int startMinute, int endMinute) {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    // parse thủ công theo vị trí ký tự (đã validate bằng @Pattern), không tạo LocalTime / String[]
+    public static TimeSlot parse(String slot) {
+        if (slot == null || slot.length() != 11 || slot.charAt(5) != '-') {
+            throw new IllegalArgumentException("timeSlot phải dạng HH:mm-HH:mm: " + slot);
+        }
+        return new TimeSlot(minutesAt(slot, 0), minutesAt(slot, 6));
+    }
+
+    private static int minutesAt(String s, int i) {
+        return ((s.charAt(i) - '0') * 10 + (s.charAt(i + 1) - '0')) * 60
+                + (s.charAt(i + 3) - '0') * 10 + (s.charAt(i + 4) - '0');
+    }
+
+    public boolean overlaps(TimeSlot other) {
+        return startMinute < other.endMinute && other.startMinute < endMinute;
+    }
+}
@@ -0,0 +1,126 @@
+package com.teenup.contest.support;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lịch tuần của 1 học sinh dưới dạng bitset: 7 ngày × 1440 phút (158 long).
+ * Kiểm tra trùng lịch chỉ là vài phép AND trên các word phủ khung giờ.
+ * Immutable: mọi thay đổi trả về bản sao mới để đọc song song không cần khoá.
+ */
+public final class WeeklyOccupancy {
+
+    private static final int BITS = 7 * TimeSlot.MINUTES_PER_DAY;
+    private static final int WORDS = (BITS + 63) >>> 6;
+
+    public static final WeeklyOccupancy EMPTY = new WeeklyOccupancy(new long[WORDS], Map.of());
+
+    private record Entry(int dayOfWeek, int startMinute, int endMinute) {}
+
+    private final long[] bits;
+    private final Map<Long, Entry> classes; // classId -> khung giờ đang chiếm
+
+    private WeeklyOccupancy(long[] bits, Map<Long, Entry> classes) {
+        this.bits = bits;
+        this.classes = classes;
+    }
+
+    public boolean contains(Long classId) {
+        return classes.containsKey(classId);
+    }
+
+    public Set<Long> classIds() {
+        return classes.keySet();
+    }
+
+    public boolean intersects(int dayOfWeek, TimeSlot slot) {
+        int from = bit(dayOfWeek, slot.startMinute());
+        int to = bit(dayOfWeek, slot.endMinute());
+        if (from >= to) return false;
+
+        for (int w = from >>> 6, last = (to - 1) >>> 6; w <= last; w++) {
+            if ((bits[w] & wordMask(w, from, to)) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Như trên nhưng bỏ qua lớp ignoreClassId (dùng khi chuyển lớp).
+     * Dựng lại bitset không có lớp đó chứ không che khung giờ của nó: lớp khác chồng cùng giờ vẫn bị tính.
+     */
+    public boolean intersects(int dayOfWeek, TimeSlot slot, Long ignoreClassId) {
+        WeeklyOccupancy base = ignoreClassId != null ? without(ignoreClassId) : this;
+        return base.intersects(dayOfWeek, slot);
+    }
+
+    /** Các đoạn bận [start, end) trong 1 ngày, đã gộp đoạn chồng/chạm nhau, tăng dần, trải phẳng: s0, e0, s1, e1, ... */
+    public int[] busyIntervals(int dayOfWeek) {
+        int[][] spans = classes.values().stream()
+                .filter(e -> e.dayOfWeek == dayOfWeek)
+                .map(e -> new int[]{clamp(e.startMinute), clamp(e.endMinute)})
+                .filter(x -> x[0] < x[1])
+                .sorted(Comparator.comparingInt(x -> x[0]))
+                .toArray(int[][]::new);
+
+        int[] out = new int[spans.length * 2];
+        int n = 0;
+        for (int[] x : spans) {
+            if (n > 0 && x[0] <= out[n - 1]) {
+                out[n - 1] = Math.max(out[n - 1], x[1]);
+            } else {
+                out[n++] = x[0];
+                out[n++] = x[1];
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    public WeeklyOccupancy with(Long classId, int dayOfWeek, TimeSlot slot) {
+        Map<Long, Entry> next = new HashMap<>(classes);
+        next.put(classId, new Entry(dayOfWeek, slot.startMinute(), slot.endMinute()));
+        return rebuild(next);
+    }
+
+    public WeeklyOccupancy without(Long classId) {
+        if (!classes.containsKey(classId)) return this;
+        Map<Long, Entry> next = new HashMap<>(classes);
+        next.remove(classId);
+        return rebuild(next);
+    }
+
+    // dựng lại toàn bộ bit từ danh sách lớp (dữ liệu cũ có thể có lớp chồng giờ nên không clear từng đoạn)
+    private static WeeklyOccupancy rebuild(Map<Long, Entry> classes) {
+        long[] bits = new long[WORDS];
+        for (Entry e : classes.values()) {
+            set(bits, bit(e.dayOfWeek, e.startMinute), bit(e.dayOfWeek, e.endMinute));
+        }
+        return new WeeklyOccupancy(bits, Map.copyOf(classes));
+    }
+
+    private static void set(long[] bits, int from, int to) {
+        if (from >= to) return;
+        for (int w = from >>> 6, last = (to - 1) >>> 6; w <= last; w++) {
+            bits[w] |= wordMask(w, from, to);
+        }
+    }
+
+    // các bit của word w nằm trong [from, to)
+    private static long wordMask(int w, int from, int to) {
+        int lo = Math.max(from - (w << 6), 0);
+        int hi = Math.min(to - (w << 6), 64);
+        if (lo >= hi) return 0L;
+        return (-1L << lo) & (-1L >>> (64 - hi));
+    }
+
+    // vị trí bit của (ngày, phút); phút bị kẹp trong [0, 1440] để không tràn sang ngày kế
+    private static int bit(int dayOfWeek, int minute) {
+        return (dayOfWeek - 1) * TimeSlot.MINUTES_PER_DAY + clamp(minute);
+    }
+
+    private static int clamp(int minute) {
+        return Math.min(Math.max(minute, 0), TimeSlot.MINUTES_PER_DAY);
+    }
+}
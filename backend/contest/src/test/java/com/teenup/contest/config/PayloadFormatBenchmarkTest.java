@@ -0,0 +1,103 @@
+package com.teenup.contest.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.teenup.contest.dto.response.ClassWithStudentsResponse;
+import com.teenup.contest.dto.response.RegisteredStudentBrief;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * So sánh JSON / CBOR (có / không gzip) cho danh sách ClassWithStudentsResponse: số byte và CPU serialize.
+ * Chỉ chạy khi bật: mvn test -Dtest=PayloadFormatBenchmarkTest -Dbench=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class PayloadFormatBenchmarkTest {
+
+    private static final int CLASSES = 200;
+    private static final int STUDENTS_PER_CLASS = 25;
+    private static final int WARMUP = 200;
+    private static final int ROUNDS = 500;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void classRosterPayloads() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(JacksonAutoConfiguration.class))
+                .withUserConfiguration(JacksonConfig.class)
+                .run(ctx -> {
+                    ObjectMapper json = ctx.getBean(ObjectMapper.class);
+                    ObjectMapper cbor = ctx.getBean(Jackson2ObjectMapperBuilder.class).factory(new CBORFactory()).build();
+                    List<ClassWithStudentsResponse> payload = payload();
+
+                    Result j = measure("json", json, payload);
+                    Result c = measure("cbor", cbor, payload);
+                    log.info("{} classes x {} students", CLASSES, STUDENTS_PER_CLASS);
+                    log.info(String.format("%-6s %10s %10s %14s %14s", "format", "bytes", "gzip", "serialize us", "+gzip us"));
+                    for (Result r : List.of(j, c)) {
+                        log.info(String.format("%-6s %10d %10d %14.1f %14.1f",
+                                r.name, r.bytes, r.gzipBytes, r.serializeMicros, r.gzipMicros));
+                    }
+
+                    assertThat(c.bytes).isLessThan(j.bytes);
+                    assertThat(j.gzipBytes).isLessThan(j.bytes);
+                });
+    }
+
+    private Result measure(String name, ObjectMapper mapper, List<ClassWithStudentsResponse> payload) throws IOException {
+        byte[] raw = mapper.writeValueAsBytes(payload);
+        byte[] gz = gzip(raw);
+        for (int i = 0; i < WARMUP; i++) gzip(mapper.writeValueAsBytes(payload));
+
+        long t0 = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ROUNDS; i++) mapper.writeValueAsBytes(payload);
+        long t1 = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ROUNDS; i++) gzip(mapper.writeValueAsBytes(payload));
+        long t2 = threads.getCurrentThreadCpuTime();
+
+        return new Result(name, raw.length, gz.length, (t1 - t0) / 1_000.0 / ROUNDS, (t2 - t1) / 1_000.0 / ROUNDS);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<ClassWithStudentsResponse> payload() {
+        Instant now = Instant.parse("2025-09-01T08:00:00Z");
+        List<ClassWithStudentsResponse> classes = new ArrayList<>(CLASSES);
+        long studentId = 1;
+        for (long c = 1; c <= CLASSES; c++) {
+            List<RegisteredStudentBrief> students = new ArrayList<>(STUDENTS_PER_CLASS);
+            for (int s = 0; s < STUDENTS_PER_CLASS; s++, studentId++) {
+                students.add(new RegisteredStudentBrief(studentId, "Nguyễn Văn Học Sinh " + studentId, "Grade " + (6 + s % 6)));
+            }
+            classes.add(new ClassWithStudentsResponse(c, "Lớp " + c, "Math", (int) (c % 7) + 1, "18:00-19:30",
+                    "Giáo viên " + c, 30, students, now, now));
+        }
+        return classes;
+    }
+
+    private record Result(String name, int bytes, int gzipBytes, double serializeMicros, double gzipMicros) {}
+}
@@ -0,0 +1,146 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.request.AttendanceRequest;
+import com.teenup.contest.dto.response.AttendanceItemResult;
+import com.teenup.contest.dto.response.AttendanceResponse;
+import com.teenup.contest.entity.*;
+import com.teenup.contest.exception.ClassNotFoundException;
+import com.teenup.contest.exception.ErrorCode;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Điểm danh cả lớp: kết quả từng học sinh (trừ buổi / chưa đăng ký / không có gói / hết buổi),
+ * gói hết hạn sớm nhất được trừ trước, hết buổi thì chuyển sang gói kế tiếp.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({AttendanceService.class, SessionUsageLedger.class})
+class AttendanceServiceTest {
+
+    @Autowired AttendanceService service;
+    @Autowired SubscriptionsRepository subsRepo;
+    @Autowired EntityManager em;
+
+    ParentsEntity parent;
+    ClassesEntity clazz;
+    LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        parent = new ParentsEntity();
+        parent.setName("Phụ huynh");
+        parent.setPhone("0900000000");
+        em.persist(parent);
+
+        clazz = new ClassesEntity();
+        clazz.setName("Lớp 6A");
+        clazz.setSubject("Math");
+        clazz.setDayOfWeek(2);
+        clazz.setTimeSlot("08:00-09:00");
+        clazz.setTeacherName("GV");
+        clazz.setMaxStudents(10);
+        em.persist(clazz);
+    }
+
+    @Test
+    void checkIn_reportsOutcomePerStudent() {
+        StudentsEntity ok = student(true);
+        Long okSub = subscription(ok, 5, 1, today.plusDays(30));
+        StudentsEntity notRegistered = student(false);
+        subscription(notRegistered, 5, 0, today.plusDays(30));
+        StudentsEntity noPackage = student(true);
+        StudentsEntity exhausted = student(true);
+        subscription(exhausted, 3, 3, today.plusDays(30));
+
+        AttendanceResponse res = service.checkIn(clazz.getId(), new AttendanceRequest(null,
+                List.of(ok.getId(), notRegistered.getId(), noPackage.getId(), exhausted.getId(), ok.getId())));
+
+        assertThat(res.date()).isEqualTo(today);
+        assertThat(res.requested()).isEqualTo(4);
+        assertThat(res.consumed()).isEqualTo(1);
+        assertThat(res.rejected()).isEqualTo(3);
+        assertThat(res.items()).extracting(AttendanceItemResult::status).containsExactly(
+                AttendanceService.CONSUMED,
+                ErrorCode.REGISTRATION_NOT_FOUND.code(),
+                ErrorCode.NO_ACTIVE_SUBSCRIPTION.code(),
+                ErrorCode.NO_REMAINING_SESSIONS.code());
+        assertThat(res.items().get(0).subscriptionId()).isEqualTo(okSub);
+        assertThat(res.items().get(0).remainingSessions()).isEqualTo(3);
+        assertThat(subsRepo.findResponseById(okSub).orElseThrow().usedSessions()).isEqualTo(2);
+    }
+
+    @Test
+    void checkIn_usesEarliestExpiringPackage_thenFallsBack() {
+        StudentsEntity s = student(true);
+        Long soon = subscription(s, 1, 0, today.plusDays(3));
+        Long later = subscription(s, 5, 0, today.plusDays(60));
+        Long notStarted = subscription(s, 5, 0, today.plusDays(90));
+        em.find(SubscriptionsEntity.class, notStarted).setStartDate(today.plusDays(1));
+        em.flush();
+
+        AttendanceResponse first = service.checkIn(clazz.getId(), new AttendanceRequest(today, List.of(s.getId())));
+        AttendanceResponse second = service.checkIn(clazz.getId(), new AttendanceRequest(today, List.of(s.getId())));
+
+        assertThat(first.items().get(0).subscriptionId()).isEqualTo(soon);
+        assertThat(first.items().get(0).remainingSessions()).isZero();
+        assertThat(second.items().get(0).subscriptionId()).isEqualTo(later);
+        assertThat(second.items().get(0).remainingSessions()).isEqualTo(4);
+    }
+
+    @Test
+    void checkIn_pastDateOutsidePackageWindow_noActiveSubscription() {
+        StudentsEntity s = student(true);
+        subscription(s, 5, 0, today.plusDays(30));
+
+        AttendanceResponse res = service.checkIn(clazz.getId(),
+                new AttendanceRequest(today.minusDays(60), List.of(s.getId())));
+
+        assertThat(res.consumed()).isZero();
+        assertThat(res.items().get(0).status()).isEqualTo(ErrorCode.NO_ACTIVE_SUBSCRIPTION.code());
+    }
+
+    @Test
+    void checkIn_unknownClass_notFound() {
+        assertThatThrownBy(() -> service.checkIn(-1L, new AttendanceRequest(null, List.of(1L))))
+                .isInstanceOf(ClassNotFoundException.class);
+    }
+
+    private StudentsEntity student(boolean registered) {
+        StudentsEntity s = new StudentsEntity();
+        s.setName("HS");
+        s.setDob(LocalDate.of(2012, 1, 1));
+        s.setGender(Gender.M);
+        s.setCurrentGrade("6");
+        s.setParent(parent);
+        em.persist(s);
+        if (registered) em.persist(new ClassRegistrationEntity(clazz, s));
+        return s;
+    }
+
+    private Long subscription(StudentsEntity student, int total, int used, LocalDate end) {
+        SubscriptionsEntity sub = new SubscriptionsEntity();
+        sub.setStudent(student);
+        sub.setPackageName("Gói");
+        sub.setStartDate(today.minusDays(30));
+        sub.setEndDate(end);
+        sub.setTotalSessions(total);
+        sub.setUsedSessions(used);
+        em.persist(sub);
+        em.flush();
+        return sub.getId();
+    }
+}
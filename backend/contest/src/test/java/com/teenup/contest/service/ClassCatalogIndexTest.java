@@ -0,0 +1,174 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.response.ClassResponse;
+import com.teenup.contest.entity.ClassesEntity;
+import com.teenup.contest.support.TimeSlot;
+import com.teenup.contest.support.WeeklyOccupancy;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Snapshot danh mục lớp: dựng lại sau commit, ETag theo ngày chỉ đổi khi lớp của ngày đó đổi.
+ * Dữ liệu được commit thật (snapshot đọc DB bằng transaction riêng).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ClassCatalogIndex.class, ClassCatalogIndexTest.Executor.class})
+class ClassCatalogIndexTest {
+
+    @TestConfiguration
+    static class Executor {
+        @Bean(name = "applicationTaskExecutor")
+        TaskExecutor applicationTaskExecutor() {
+            return new SyncTaskExecutor();
+        }
+    }
+
+    @Autowired ClassCatalogIndex index;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(txManager);
+    }
+
+    @Test
+    void etag_changesOnlyForAffectedDay() {
+        Long mon = clazz(1, "08:00-09:00");
+        clazz(2, "08:00-09:00");
+        String monTag = index.etag(1);
+        String tueTag = index.etag(2);
+        String allTag = index.etag(null);
+        assertThat(index.etag(1)).isEqualTo(monTag);
+
+        tx.executeWithoutResult(s -> {
+            em.find(ClassesEntity.class, mon).setName("Lớp đổi tên");
+            index.onClassesChanged();
+        });
+
+        assertThat(index.etag(1)).isNotEqualTo(monTag);
+        assertThat(index.etag(2)).isEqualTo(tueTag);
+        assertThat(index.etag(null)).isNotEqualTo(allTag);
+        assertThat(index.classes(1)).anyMatch(c -> c.name().equals("Lớp đổi tên"));
+    }
+
+    @Test
+    void etag_changesWhenClassDeleted() {
+        Long id = clazz(3, "10:00-11:00");
+        String before = index.etag(3);
+
+        tx.executeWithoutResult(s -> {
+            em.remove(em.find(ClassesEntity.class, id));
+            index.onClassesChanged();
+        });
+
+        assertThat(index.etag(3)).isNotEqualTo(before);
+        assertThat(index.classes(3)).noneMatch(c -> c.id().equals(id));
+    }
+
+    @Test
+    void rolledBackChange_keepsSnapshot() {
+        clazz(4, "10:00-11:00");
+        String before = index.etag(4);
+
+        tx.executeWithoutResult(s -> {
+            clazzInTx(4, "12:00-13:00");
+            index.onClassesChanged();
+            s.setRollbackOnly();
+        });
+
+        assertThat(index.etag(4)).isEqualTo(before);
+    }
+
+    @Test
+    void classesFitting_skipsBusyAndOwnClasses_inDayThenStartOrder() {
+        Long own = clazz(5, "08:00-09:00");
+        Long overlaps = clazz(5, "08:30-09:30");
+        Long touching = clazz(5, "09:00-10:00");
+        Long spansGap = clazz(5, "10:30-12:30");   // bắt đầu trong khoảng trống nhưng kết thúc trong giờ bận
+        Long inGap = clazz(5, "10:00-12:00");
+        Long afterBusy = clazz(5, "13:00-14:00");
+        Long otherDay = clazz(6, "08:00-09:00");
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY
+                .with(own, 5, TimeSlot.parse("08:00-09:00"))
+                .with(-1L, 5, TimeSlot.parse("12:00-13:00"));
+
+        List<Long> fitting = index.classesFitting(occ);
+
+        assertThat(fitting).doesNotContain(own, overlaps, spansGap);
+        assertThat(fitting).containsSubsequence(touching, inGap, afterBusy, otherDay);
+    }
+
+    // Kết quả phải trùng với cách dò từng lớp bằng bitset
+    @Test
+    void classesFitting_matchesPerClassIntersectCheck() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            int start = rnd.nextInt(22 * 60);
+            int len = 15 + rnd.nextInt(150);
+            clazz(1 + rnd.nextInt(7), hhmm(start) + "-" + hhmm(Math.min(start + len, 23 * 60 + 59)));
+        }
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY;
+        for (long id = 1; id <= 12; id++) {
+            int start = rnd.nextInt(22 * 60);
+            occ = occ.with(-id, 1 + rnd.nextInt(7), new TimeSlot(start, start + 30 + rnd.nextInt(90)));
+        }
+
+        List<Long> expected = new ArrayList<>();
+        for (int day = 1; day <= 7; day++) {
+            for (ClassResponse c : index.classes(day)) {
+                if (!occ.intersects(day, TimeSlot.parse(c.timeSlot()))) expected.add(c.id());
+            }
+        }
+        assertThat(index.classesFitting(occ)).containsExactlyElementsOf(expected);
+    }
+
+    private static String hhmm(int minute) {
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+
+    private Long clazz(int day, String slot) {
+        return tx.execute(s -> {
+            Long id = clazzInTx(day, slot);
+            index.onClassesChanged();
+            return id;
+        });
+    }
+
+    private Long clazzInTx(int day, String slot) {
+        ClassesEntity c = new ClassesEntity();
+        c.setName("Lớp");
+        c.setSubject("Math");
+        c.setDayOfWeek(day);
+        c.setTimeSlot(slot);
+        c.setTeacherName("GV");
+        c.setMaxStudents(10);
+        em.persist(c);
+        em.flush();
+        return c.getId();
+    }
+}
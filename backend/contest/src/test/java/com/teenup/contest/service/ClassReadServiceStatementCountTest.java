@@ -0,0 +1,101 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.response.ClassWithStudentsResponse;
+import com.teenup.contest.dto.response.CursorPage;
+import com.teenup.contest.entity.*;
+import com.teenup.contest.mapper.ClassReadMapperImpl;
+import com.teenup.contest.support.KeysetPaging;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * expand=registrations phải chạy đúng 2 câu SQL (trang lớp + roster bằng IN) dù có bao nhiêu lớp / học sinh.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import({ClassReadService.class, ClassReadMapperImpl.class, KeysetPaging.class})
+class ClassReadServiceStatementCountTest {
+
+    @Autowired ClassReadService service;
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+
+    @MockitoBean ClassRosterCache rosterCache;
+
+    @Test
+    void fewClasses_twoStatements() {
+        seed(3, 2);
+        assertStatements(null, null, 3, 6);
+    }
+
+    @Test
+    void manyClasses_stillTwoStatements() {
+        seed(25, 8);
+        assertStatements(null, null, 25, 200);
+    }
+
+    @Test
+    void pagedRequest_twoStatements() {
+        seed(12, 5);
+        CursorPage<ClassWithStudentsResponse> page = assertStatements(null, 5, 5, 25);
+        assertThat(page.nextCursor()).isNotNull();
+    }
+
+    private CursorPage<ClassWithStudentsResponse> assertStatements(String cursor, Integer limit,
+                                                                   int expectedClasses, int expectedStudents) {
+        em.flush();
+        em.clear();
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        CursorPage<ClassWithStudentsResponse> page = service.listClassesWithStudents(null, cursor, limit);
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(page.items()).hasSize(expectedClasses);
+        assertThat(page.items().stream().mapToInt(c -> c.students().size()).sum()).isEqualTo(expectedStudents);
+        return page;
+    }
+
+    private void seed(int classes, int studentsPerClass) {
+        ParentsEntity parent = new ParentsEntity();
+        parent.setName("Phụ huynh");
+        parent.setPhone("0900000000");
+        em.persist(parent);
+
+        for (int i = 0; i < classes; i++) {
+            ClassesEntity c = new ClassesEntity();
+            c.setName("Lớp " + i);
+            c.setSubject("Math");
+            c.setDayOfWeek(i % 7 + 1);
+            c.setTimeSlot("08:00-09:00");
+            c.setTeacherName("GV");
+            c.setMaxStudents(studentsPerClass);
+            em.persist(c);
+
+            for (int j = 0; j < studentsPerClass; j++) {
+                StudentsEntity s = new StudentsEntity();
+                s.setName("HS " + i + "-" + j);
+                s.setDob(LocalDate.of(2012, 1, 1));
+                s.setGender(Gender.M);
+                s.setCurrentGrade("6");
+                s.setParent(parent);
+                em.persist(s);
+                em.persist(new ClassRegistrationEntity(c, s));
+            }
+        }
+    }
+}
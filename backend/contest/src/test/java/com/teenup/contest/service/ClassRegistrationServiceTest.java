@@ -0,0 +1,261 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.request.BulkRegisterRequest;
+import com.teenup.contest.dto.request.MoveRegistrationRequest;
+import com.teenup.contest.dto.request.RegisterRequest;
+import com.teenup.contest.dto.response.BulkRegisterItemResult;
+import com.teenup.contest.dto.response.BulkRegisterResponse;
+import com.teenup.contest.entity.*;
+import com.teenup.contest.exception.BaseException;
+import com.teenup.contest.exception.ErrorCode;
+import com.teenup.contest.exception.ScheduleConflictException;
+import com.teenup.contest.repository.ClassRegistrationsBatchRepositoryImpl;
+import com.teenup.contest.repository.ClassRegistrationsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Đăng ký / chuyển lớp chạy trên dữ liệu đã commit (không rollback theo test) vì cache lịch tuần
+ * nạp bằng transaction riêng. Mỗi test tự tạo học sinh / lớp của mình.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ClassRegistrationService.class, StudentScheduleIndex.class, ClassRosterCache.class,
+        ClassRegistrationServiceTest.Meters.class})
+class ClassRegistrationServiceTest {
+
+    @TestConfiguration
+    static class Meters {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired ClassRegistrationService service;
+    @Autowired StudentScheduleIndex scheduleIndex;
+    @Autowired ClassRegistrationsRepository regRepo;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired DataSource dataSource;
+
+    TransactionTemplate tx;
+    ParentsEntity parent;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(txManager);
+        parent = tx.execute(s -> {
+            ParentsEntity p = new ParentsEntity();
+            p.setName("Phụ huynh");
+            p.setPhone("0900000000");
+            em.persist(p);
+            return p;
+        });
+    }
+
+    @Test
+    void register_updatesScheduleCacheAfterCommit() {
+        Long student = student();
+        Long a = clazz(1, "08:00-09:00", 5);
+        assertThat(scheduleIndex.get(student).contains(a)).isFalse();
+
+        service.register(a, new RegisterRequest(student));
+
+        assertThat(scheduleIndex.get(student).contains(a)).isTrue();
+        assertThatThrownBy(() -> service.register(clazz(1, "08:30-09:30", 5), new RegisterRequest(student)))
+                .isInstanceOf(ScheduleConflictException.class);
+    }
+
+    @Test
+    void register_rowWrittenElsewhere_conflictCaughtByDb() {
+        Long student = student();
+        Long a = clazz(2, "08:00-09:00", 5);
+        Long b = clazz(2, "08:30-09:30", 5);
+        scheduleIndex.get(student); // cache: chưa học lớp nào
+
+        // node khác đăng ký lớp a: cache ở node này không được báo
+        tx.executeWithoutResult(s -> em.persist(new ClassRegistrationEntity(
+                em.getReference(ClassesEntity.class, a), em.getReference(StudentsEntity.class, student))));
+
+        assertThatThrownBy(() -> service.register(b, new RegisterRequest(student)))
+                .isInstanceOf(ScheduleConflictException.class);
+        service.register(clazz(2, "09:00-10:00", 5), new RegisterRequest(student));
+    }
+
+    @Test
+    void move_otherClassOverlappingTarget_stillConflicts() {
+        Long student = student();
+        Long wide = clazz(3, "08:00-10:00", 5);
+        Long inner = clazz(3, "09:00-09:30", 5);
+        service.register(wide, new RegisterRequest(student));
+        // dữ liệu cũ: lớp chồng giờ đã có sẵn (không qua kiểm tra)
+        tx.executeWithoutResult(s -> em.persist(new ClassRegistrationEntity(
+                em.getReference(ClassesEntity.class, inner), em.getReference(StudentsEntity.class, student))));
+
+        Long target = clazz(3, "09:15-09:45", 5);
+        assertThatThrownBy(() -> service.move(wide, student, new MoveRegistrationRequest(target)))
+                .isInstanceOf(BaseException.class)
+                .extracting(ex -> ((BaseException) ex).getErrorCode())
+                .isEqualTo(ErrorCode.SCHEDULE_CONFLICT);
+
+        Long free = clazz(3, "10:00-11:00", 5);
+        service.move(wide, student, new MoveRegistrationRequest(free));
+        assertThat(scheduleIndex.get(student).contains(free)).isTrue();
+        assertThat(scheduleIndex.get(student).contains(wide)).isFalse();
+    }
+
+    @Test
+    void registerBatch_reportsOutcomePerPair() {
+        Long s1 = student();
+        Long s2 = student();
+        Long a = clazz(4, "08:00-09:00", 5);
+        Long b = clazz(4, "08:30-09:30", 5);   // trùng giờ với a trong cùng lô
+        Long full = clazz(5, "08:00-09:00", 1);
+        service.register(full, new RegisterRequest(s2));
+
+        BulkRegisterResponse res = service.registerBatch(new BulkRegisterRequest(
+                List.of(a, b, full, -1L), List.of(s1, s2, -2L)));
+
+        assertThat(res.requested()).isEqualTo(12);
+        assertThat(res.registered()).isEqualTo(2);
+        assertThat(statusOf(res, a, s1)).isEqualTo("REGISTERED");
+        assertThat(statusOf(res, a, s2)).isEqualTo("REGISTERED");
+        assertThat(statusOf(res, b, s1)).isEqualTo(ErrorCode.SCHEDULE_CONFLICT.code());
+        assertThat(statusOf(res, full, s1)).isEqualTo(ErrorCode.CLASS_FULL.code());
+        assertThat(statusOf(res, full, s2)).isEqualTo(ErrorCode.ALREADY_REGISTERED.code());
+        assertThat(statusOf(res, a, -2L)).isEqualTo(ErrorCode.STUDENT_NOT_FOUND.code());
+        assertThat(statusOf(res, -1L, s1)).isEqualTo(ErrorCode.CLASS_NOT_FOUND.code());
+        assertThat(registeredCount(a)).isEqualTo(2);
+    }
+
+    // 2 lô song song cùng 1 lớp: tổng số chỗ giữ không vượt max, chỉ phần vượt bị CLASS_FULL, không lô nào lỗi cả lô
+    @Test
+    void registerBatch_concurrent_grantsRemainingSeatsOnly() throws Exception {
+        Long c = clazz(6, "08:00-09:00", 3);
+        List<Long> first = List.of(student(), student());
+        List<Long> second = List.of(student(), student());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<BulkRegisterResponse> f1 = pool.submit(() -> service.registerBatch(new BulkRegisterRequest(List.of(c), first)));
+            Future<BulkRegisterResponse> f2 = pool.submit(() -> service.registerBatch(new BulkRegisterRequest(List.of(c), second)));
+            BulkRegisterResponse r1 = f1.get();
+            BulkRegisterResponse r2 = f2.get();
+
+            assertThat(r1.registered() + r2.registered()).isEqualTo(3);
+            assertThat(r1.rejected() + r2.rejected()).isEqualTo(1);
+            assertThat(Stream.concat(r1.items().stream(), r2.items().stream())
+                    .filter(i -> !"REGISTERED".equals(i.status())))
+                    .extracting(BulkRegisterItemResult::status).containsExactly(ErrorCode.CLASS_FULL.code());
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(registeredCount(c)).isEqualTo(3);
+    }
+
+    @Test
+    void batchInsert_existingRowSkipped_othersInserted() {
+        Long s1 = student();
+        Long s2 = student();
+        Long c = clazz(7, "08:00-09:00", 5);
+        service.register(c, new RegisterRequest(s1));
+
+        List<Long> inserted = tx.execute(s -> regRepo.batchInsert(c, List.of(s1, s2)));
+
+        assertThat(inserted).containsExactly(s2);
+        assertThat(regRepo.countByClassId(c)).isEqualTo(2);
+    }
+
+    @Test
+    void batchInsert_countsUnknown_reReadsInsertedRows() {
+        Long s1 = student();
+        Long s2 = student();
+        Long c = clazz(7, "10:00-11:00", 5);
+        service.register(c, new RegisterRequest(s1));
+
+        // giả lập rewriteBatchedStatements: driver trả SUCCESS_NO_INFO cho mọi dòng
+        JdbcTemplate noInfo = new JdbcTemplate(dataSource) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> args, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                int[][] counts = super.batchUpdate(sql, args, batchSize, pss);
+                for (int[] chunk : counts) Arrays.fill(chunk, Statement.SUCCESS_NO_INFO);
+                return counts;
+            }
+        };
+        var repo = new ClassRegistrationsBatchRepositoryImpl(noInfo);
+        List<Long> inserted = tx.execute(s -> repo.batchInsert(c, List.of(s1, s2)));
+
+        assertThat(inserted).containsExactly(s2);
+    }
+
+    private static String statusOf(BulkRegisterResponse res, Long classId, Long studentId) {
+        return res.items().stream()
+                .filter(i -> i.classId().equals(classId) && i.studentId().equals(studentId))
+                .findFirst().orElseThrow().status();
+    }
+
+    private int registeredCount(Long classId) {
+        em.clear();
+        return em.find(ClassesEntity.class, classId).getRegisteredCount();
+    }
+
+    private Long student() {
+        return tx.execute(s -> {
+            StudentsEntity st = new StudentsEntity();
+            st.setName("HS");
+            st.setDob(LocalDate.of(2012, 1, 1));
+            st.setGender(Gender.M);
+            st.setCurrentGrade("6");
+            st.setParent(em.getReference(ParentsEntity.class, parent.getId()));
+            em.persist(st);
+            return st.getId();
+        });
+    }
+
+    private Long clazz(int day, String slot, int max) {
+        return tx.execute(s -> {
+            ClassesEntity c = new ClassesEntity();
+            c.setName("Lớp");
+            c.setSubject("Math");
+            c.setDayOfWeek(day);
+            c.setTimeSlot(slot);
+            c.setTeacherName("GV");
+            c.setMaxStudents(max);
+            em.persist(c);
+            return c.getId();
+        });
+    }
+}
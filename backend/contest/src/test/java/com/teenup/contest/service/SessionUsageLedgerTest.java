@@ -0,0 +1,176 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.entity.*;
+import com.teenup.contest.exception.NoRemainingSessionsException;
+import com.teenup.contest.exception.SubscriptionInactiveException;
+import com.teenup.contest.mapper.SubscriptionMapperImpl;
+import com.teenup.contest.repository.SessionUsagesRepository;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.support.KeysetPaging;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Sổ dùng buổi: DB giữ điều kiện "còn buổi" (kể cả nhiều luồng check-in cùng 1 gói), reset tính trên số đã commit,
+ * job gộp chuyển sổ vào snapshot mà số buổi hiện tại không đổi.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({SubscriptionService.class, SessionUsageLedger.class, SessionUsageCompactor.class,
+        SubscriptionMapperImpl.class, KeysetPaging.class})
+class SessionUsageLedgerTest {
+
+    @Autowired SubscriptionService service;
+    @Autowired SessionUsageCompactor compactor;
+    @Autowired SubscriptionsRepository subsRepo;
+    @Autowired SessionUsagesRepository usageRepo;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+
+    @Test
+    void useOne_stopsAtTotal() {
+        Long id = seed(2, LocalDate.now().minusDays(1), LocalDate.now().plusDays(30)).getId();
+
+        assertThat(service.useOne(id).remainingSessions()).isEqualTo(1);
+        assertThat(service.useOne(id).remainingSessions()).isZero();
+        assertThatThrownBy(() -> service.useOne(id)).isInstanceOf(NoRemainingSessionsException.class);
+        assertThat(usageRepo.count()).isEqualTo(2);
+    }
+
+    @Test
+    void useOne_outsideWindow_inactive() {
+        Long id = seed(5, LocalDate.now().plusDays(1), LocalDate.now().plusDays(30)).getId();
+
+        assertThatThrownBy(() -> service.useOne(id)).isInstanceOf(SubscriptionInactiveException.class);
+        assertThat(usageRepo.count()).isZero();
+    }
+
+    @Test
+    void compaction_movesLedgerIntoSnapshot_currentUsedUnchanged() {
+        Long id = seed(10, LocalDate.now().minusDays(1), LocalDate.now().plusDays(30)).getId();
+        for (int i = 0; i < 3; i++) service.useOne(id);
+
+        compactor.compact();
+        assertThat(usageRepo.findPendingSubscriptionIds(Limit.unlimited())).isEmpty();
+        assertThat(snapshotUsed(id)).isEqualTo(3);
+        assertThat(subsRepo.findResponseById(id).orElseThrow().usedSessions()).isEqualTo(3);
+
+        // dòng mới sau khi gộp vẫn được cộng, gộp lần 2 không cộng trùng dòng cũ
+        assertThat(service.useOne(id).usedSessions()).isEqualTo(4);
+        compactor.compact();
+        assertThat(snapshotUsed(id)).isEqualTo(4);
+        assertThat(subsRepo.findResponseById(id).orElseThrow().remainingSessions()).isEqualTo(6);
+        assertThat(usageRepo.count()).isEqualTo(4);
+    }
+
+    @Test
+    void reset_appendsNegativeDelta_keepsHistory() {
+        Long id = seed(10, LocalDate.now().minusDays(1), LocalDate.now().plusDays(30)).getId();
+        service.useOne(id);
+        service.useOne(id);
+        compactor.compact();
+        service.useOne(id);
+
+        assertThat(service.resetUsed(id).usedSessions()).isZero();
+        assertThat(usageRepo.findAll()).extracting(SessionUsageEntity::getDelta).containsExactlyInAnyOrder(1, 1, 1, -3);
+
+        compactor.compact();
+        assertThat(snapshotUsed(id)).isZero();
+        assertThat(service.useOne(id).usedSessions()).isEqualTo(1);
+    }
+
+    @Test
+    void deleteByStudentId_removesLedgerRowsOfAllPackages() {
+        SubscriptionsEntity sub = seed(5, LocalDate.now().minusDays(1), LocalDate.now().plusDays(30));
+        service.useOne(sub.getId());
+
+        assertThat(usageRepo.deleteByStudentId(sub.getStudent().getId())).isEqualTo(1);
+        assertThat(usageRepo.count()).isZero();
+    }
+
+    // Nhiều luồng (như nhiều node) check-in cùng 1 gói: không bao giờ vượt totalSessions
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentCheckIns_neverExceedTotal() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        Long id = tx.execute(s -> seed(20, LocalDate.now().minusDays(1), LocalDate.now().plusDays(30)).getId());
+
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        try {
+                            service.useOne(id);
+                            consumed.incrementAndGet();
+                        } catch (NoRemainingSessionsException ex) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(consumed.get()).isEqualTo(20);
+        assertThat(rejected.get()).isEqualTo(20);
+        assertThat(subsRepo.findResponseById(id).orElseThrow().usedSessions()).isEqualTo(20);
+    }
+
+    private int snapshotUsed(Long id) {
+        em.flush();
+        em.clear();
+        return subsRepo.findById(id).orElseThrow().getUsedSessions();
+    }
+
+    private SubscriptionsEntity seed(int total, LocalDate start, LocalDate end) {
+        ParentsEntity parent = new ParentsEntity();
+        parent.setName("Phụ huynh");
+        parent.setPhone("0900000000");
+        em.persist(parent);
+
+        StudentsEntity student = new StudentsEntity();
+        student.setName("HS");
+        student.setDob(LocalDate.of(2012, 1, 1));
+        student.setGender(Gender.M);
+        student.setCurrentGrade("6");
+        student.setParent(parent);
+        em.persist(student);
+
+        SubscriptionsEntity sub = new SubscriptionsEntity();
+        sub.setStudent(student);
+        sub.setPackageName("Gói 10 buổi");
+        sub.setStartDate(start);
+        sub.setEndDate(end);
+        sub.setTotalSessions(total);
+        sub.setUsedSessions(0);
+        em.persist(sub);
+        return sub;
+    }
+}
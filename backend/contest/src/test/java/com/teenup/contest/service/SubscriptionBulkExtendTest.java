@@ -0,0 +1,110 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.request.BulkExtendRequest;
+import com.teenup.contest.dto.response.BulkExtendItemResult;
+import com.teenup.contest.dto.response.BulkExtendResponse;
+import com.teenup.contest.entity.*;
+import com.teenup.contest.exception.ErrorCode;
+import com.teenup.contest.mapper.SubscriptionMapperImpl;
+import com.teenup.contest.support.KeysetPaging;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Gia hạn hàng loạt: gói hợp lệ được gia hạn bằng 1 UPDATE, gói không tồn tại / hạn mới lùi lại
+ * trả về từng dòng bị từ chối đúng thứ tự yêu cầu, status được tính lại.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({SubscriptionService.class, SessionUsageLedger.class, SubscriptionMapperImpl.class, KeysetPaging.class})
+class SubscriptionBulkExtendTest {
+
+    @Autowired SubscriptionService service;
+    @Autowired EntityManager em;
+
+    @Test
+    void extendBatch_byIds_reportsRejectedIdsInOrder() {
+        LocalDate today = LocalDate.now();
+        Long exhausted = seed("Gói A", 4, 4, today.plusDays(10), SubscriptionStatus.EXHAUSTED);
+        Long longer = seed("Gói A", 4, 0, today.plusDays(90), SubscriptionStatus.ACTIVE);
+        Long ok = seed("Gói A", 4, 1, today.plusDays(10), SubscriptionStatus.ACTIVE);
+        long missing = 999_999L;
+
+        BulkExtendResponse res = service.extendBatch(new BulkExtendRequest(
+                List.of(exhausted, missing, longer, ok, ok), null, null, null, 2, today.plusDays(30)));
+
+        assertThat(res.requested()).isEqualTo(4);
+        assertThat(res.extended()).isEqualTo(2);
+        assertThat(res.rejected()).isEqualTo(2);
+        assertThat(res.items()).extracting(BulkExtendItemResult::subscriptionId)
+                .containsExactly(exhausted, missing, longer, ok);
+        assertThat(res.items()).extracting(BulkExtendItemResult::status).containsExactly(
+                "EXTENDED", ErrorCode.SUBSCRIPTION_NOT_FOUND.code(), ErrorCode.SUBSCRIPTION_INVALID_DATES.code(), "EXTENDED");
+
+        SubscriptionsEntity e = reload(exhausted);
+        assertThat(e.getTotalSessions()).isEqualTo(6);
+        assertThat(e.getEndDate()).isEqualTo(today.plusDays(30));
+        assertThat(e.getStatus()).isEqualTo(SubscriptionStatus.ACTIVE);
+        assertThat(reload(longer).getTotalSessions()).isEqualTo(4);
+    }
+
+    @Test
+    void extendBatch_byFilter_onlyMatchingPackage() {
+        LocalDate today = LocalDate.now();
+        Long a = seed("Gói hè", 8, 0, today.plusDays(5), SubscriptionStatus.ACTIVE);
+        Long b = seed("Gói hè", 8, 0, today.plusDays(6), SubscriptionStatus.ACTIVE);
+        Long other = seed("Gói thường", 8, 0, today.plusDays(5), SubscriptionStatus.ACTIVE);
+
+        BulkExtendResponse res = service.extendBatch(new BulkExtendRequest(
+                null, "Gói hè", today, today.plusDays(7), 4, null));
+
+        assertThat(res.extended()).isEqualTo(2);
+        assertThat(res.rejected()).isZero();
+        assertThat(res.items()).extracting(BulkExtendItemResult::subscriptionId).containsExactlyInAnyOrder(a, b);
+        assertThat(res.items()).extracting(BulkExtendItemResult::totalSessions).containsOnly(12);
+        assertThat(reload(other).getTotalSessions()).isEqualTo(8);
+    }
+
+    private SubscriptionsEntity reload(Long id) {
+        em.flush();
+        em.clear();
+        return em.find(SubscriptionsEntity.class, id);
+    }
+
+    private Long seed(String pkg, int total, int used, LocalDate end, SubscriptionStatus status) {
+        ParentsEntity parent = new ParentsEntity();
+        parent.setName("Phụ huynh");
+        parent.setPhone("0900000000");
+        em.persist(parent);
+
+        StudentsEntity student = new StudentsEntity();
+        student.setName("HS");
+        student.setDob(LocalDate.of(2012, 1, 1));
+        student.setGender(Gender.M);
+        student.setCurrentGrade("6");
+        student.setParent(parent);
+        em.persist(student);
+
+        SubscriptionsEntity sub = new SubscriptionsEntity();
+        sub.setStudent(student);
+        sub.setPackageName(pkg);
+        sub.setStartDate(LocalDate.now().minusDays(30));
+        sub.setEndDate(end);
+        sub.setTotalSessions(total);
+        sub.setUsedSessions(used);
+        sub.setStatus(status);
+        em.persist(sub);
+        em.flush();
+        return sub.getId();
+    }
+}
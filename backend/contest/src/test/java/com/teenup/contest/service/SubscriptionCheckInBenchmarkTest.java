@@ -0,0 +1,188 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.entity.Gender;
+import com.teenup.contest.entity.ParentsEntity;
+import com.teenup.contest.entity.StudentsEntity;
+import com.teenup.contest.entity.SubscriptionsEntity;
+import com.teenup.contest.mapper.SubscriptionMapperImpl;
+import com.teenup.contest.repository.SubscriptionsRepository;
+import com.teenup.contest.support.KeysetPaging;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Check-in đồng thời trên cùng 1 gói: đọc → +1 → ghi theo version (retry khi xung đột), UPDATE có điều kiện,
+ * và sổ dùng buổi append-only của SubscriptionService.useOne.
+ * Chỉ chạy khi bật: mvn test -Dtest=SubscriptionCheckInBenchmarkTest -Dbench=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkin;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SubscriptionService.class, SessionUsageLedger.class, SubscriptionMapperImpl.class, KeysetPaging.class})
+class SubscriptionCheckInBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int CHECK_INS_PER_THREAD = 300;
+    private static final int MAX_ATTEMPTS = 3; // như @RetryOnConflict mặc định
+
+    @Autowired SubscriptionService service;
+    @Autowired SubscriptionsRepository repo;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    @Test
+    void concurrentCheckIns() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+
+        Long rmwId = tx.execute(s -> seed());
+        Result readModifyWrite = run("rmw", () -> readModifyWrite(tx, rmwId));
+
+        Long conditionalId = tx.execute(s -> seed());
+        Result conditional = run("update", () -> conditionalUpdate(tx, conditionalId));
+
+        Long ledgerId = tx.execute(s -> seed());
+        Result ledger = run("ledger", () -> {
+            service.useOne(ledgerId);
+            return 0;
+        });
+
+        log.info("{} threads x {} check-ins on one subscription", THREADS, CHECK_INS_PER_THREAD);
+        log.info(String.format("%-7s %10s %8s %8s %10s %12s", "impl", "ok", "failed", "retries", "ms", "check-ins/s"));
+        for (Result r : List.of(readModifyWrite, conditional, ledger)) {
+            log.info(String.format("%-7s %10d %8d %8d %10d %12.0f",
+                    r.name, r.ok, r.failed, r.retries, r.millis, r.ok * 1000.0 / Math.max(1, r.millis)));
+        }
+
+        assertThat(conditional.failed).isZero();
+        assertThat(ledger.failed).isZero();
+        assertThat(used(rmwId)).isEqualTo(readModifyWrite.ok);
+        assertThat(used(conditionalId)).isEqualTo(THREADS * CHECK_INS_PER_THREAD);
+        assertThat(repo.findResponseById(ledgerId).orElseThrow().usedSessions()).isEqualTo(THREADS * CHECK_INS_PER_THREAD);
+    }
+
+    // Cách đầu tiên: đọc → kiểm tra → +1 trong Java, version phát hiện xung đột, retry có backoff
+    private int readModifyWrite(TransactionTemplate tx, Long id) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                tx.executeWithoutResult(st -> {
+                    Map<String, Object> row = jdbc.queryForMap(
+                            "SELECT used_sessions, total_sessions, version FROM subscriptions WHERE id = ?", id);
+                    int used = ((Number) row.get("used_sessions")).intValue();
+                    if (used >= ((Number) row.get("total_sessions")).intValue()) throw new IllegalStateException();
+                    int n = jdbc.update("UPDATE subscriptions SET used_sessions = ?, version = version + 1 WHERE id = ? AND version = ?",
+                            used + 1, id, row.get("version"));
+                    if (n == 0) throw new OptimisticLockingFailureException("version changed");
+                });
+                return attempt - 1;
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= MAX_ATTEMPTS) throw ex;
+                Thread.sleep(ThreadLocalRandom.current().nextLong(20L << (attempt - 1)));
+            }
+        }
+    }
+
+    // Cách thứ hai: 1 UPDATE có điều kiện (mọi lượt tranh khoá cùng 1 dòng), rồi đọc response như useOne
+    private int conditionalUpdate(TransactionTemplate tx, Long id) {
+        tx.executeWithoutResult(st -> {
+            int n = jdbc.update("""
+                    UPDATE subscriptions SET used_sessions = used_sessions + 1, version = version + 1
+                    WHERE id = ? AND used_sessions < total_sessions AND ? BETWEEN start_date AND end_date
+                    """, id, java.sql.Date.valueOf(LocalDate.now()));
+            if (n == 0) throw new IllegalStateException();
+            repo.findResponseById(id).orElseThrow();
+        });
+        return 0;
+    }
+
+    private int used(Long id) {
+        return jdbc.queryForObject("SELECT used_sessions FROM subscriptions WHERE id = ?", Integer.class, id);
+    }
+
+    private Result run(String name, Callable<Integer> checkIn) throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger retries = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < CHECK_INS_PER_THREAD; i++) {
+                        try {
+                            retries.addAndGet(checkIn.call());
+                            ok.incrementAndGet();
+                        } catch (Exception ex) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new Result(name, ok.get(), failed.get(), retries.get(), millis);
+    }
+
+    private Long seed() {
+        ParentsEntity parent = new ParentsEntity();
+        parent.setName("Phụ huynh");
+        parent.setPhone("0900000000");
+        em.persist(parent);
+
+        StudentsEntity student = new StudentsEntity();
+        student.setName("HS");
+        student.setDob(LocalDate.of(2012, 1, 1));
+        student.setGender(Gender.M);
+        student.setCurrentGrade("6");
+        student.setParent(parent);
+        em.persist(student);
+
+        SubscriptionsEntity sub = new SubscriptionsEntity();
+        sub.setStudent(student);
+        sub.setPackageName("Gói bench");
+        sub.setStartDate(LocalDate.now().minusDays(1));
+        sub.setEndDate(LocalDate.now().plusDays(30));
+        sub.setTotalSessions(THREADS * CHECK_INS_PER_THREAD);
+        sub.setUsedSessions(0);
+        em.persist(sub);
+        return sub.getId();
+    }
+
+    private record Result(String name, int ok, int failed, int retries, long millis) {}
+}
@@ -0,0 +1,122 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.entity.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Job quét trạng thái: chạy đúng câu UPDATE JPQL (số buổi = used_sessions + phần sổ chưa gộp qua @Formula)
+ * và cho ra cùng kết quả với SubscriptionStatus.of.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "app.subscriptions.sweep-chunk=2"
+})
+@Import({SubscriptionStatusSweeper.class, SessionUsageLedger.class, SubscriptionStatusSweeperTest.Meters.class})
+class SubscriptionStatusSweeperTest {
+
+    @TestConfiguration
+    static class Meters {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired SubscriptionStatusSweeper sweeper;
+    @Autowired SessionUsageLedger ledger;
+    @Autowired MeterRegistry meters;
+    @Autowired EntityManager em;
+
+    @Test
+    void sweep_flagsEveryStatus_acrossChunks() {
+        LocalDate today = LocalDate.now();
+        Long active = seed(5, 1, today.plusDays(10), SubscriptionStatus.ACTIVE);
+        Long exhausted = seed(3, 3, today.plusDays(10), SubscriptionStatus.ACTIVE);
+        Long expired = seed(5, 1, today.minusDays(1), SubscriptionStatus.ACTIVE);
+        Long closed = seed(5, 5, today.minusDays(1), SubscriptionStatus.EXPIRED);
+        Long stale = seed(5, 0, today.plusDays(10), SubscriptionStatus.EXHAUSTED); // vừa gia hạn, status lệch
+        double scannedBefore = meters.counter("app.subscriptions.sweep.scanned").count();
+        double flaggedBefore = flagged();
+
+        sweeper.sweep();
+
+        assertThat(status(active)).isEqualTo(SubscriptionStatus.ACTIVE);
+        assertThat(status(exhausted)).isEqualTo(SubscriptionStatus.EXHAUSTED);
+        assertThat(status(expired)).isEqualTo(SubscriptionStatus.EXPIRED);
+        assertThat(status(closed)).isEqualTo(SubscriptionStatus.CLOSED);
+        assertThat(status(stale)).isEqualTo(SubscriptionStatus.ACTIVE);
+        assertThat(meters.counter("app.subscriptions.sweep.scanned").count() - scannedBefore).isEqualTo(5);
+        assertThat(flagged() - flaggedBefore).isEqualTo(4);
+    }
+
+    @Test
+    void sweep_countsUncompactedLedgerRows() {
+        Long id = seed(2, 1, LocalDate.now().plusDays(10), SubscriptionStatus.ACTIVE);
+        ledger.consume(id, LocalDate.now(), UsageReason.CHECK_IN);
+
+        sweeper.sweep();
+
+        assertThat(status(id)).isEqualTo(SubscriptionStatus.EXHAUSTED);
+    }
+
+    @Test
+    void sweep_leavesMatchingRowsUntouched() {
+        seed(5, 1, LocalDate.now().plusDays(10), SubscriptionStatus.ACTIVE);
+
+        sweeper.sweep();
+        double before = flagged();
+        sweeper.sweep();
+
+        assertThat(flagged() - before).isZero();
+    }
+
+    private double flagged() {
+        return meters.find("app.subscriptions.sweep.flagged").counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    private SubscriptionStatus status(Long id) {
+        em.flush();
+        em.clear();
+        return em.find(SubscriptionsEntity.class, id).getStatus();
+    }
+
+    private Long seed(int total, int used, LocalDate end, SubscriptionStatus status) {
+        ParentsEntity parent = new ParentsEntity();
+        parent.setName("Phụ huynh");
+        parent.setPhone("0900000000");
+        em.persist(parent);
+
+        StudentsEntity student = new StudentsEntity();
+        student.setName("HS");
+        student.setDob(LocalDate.of(2012, 1, 1));
+        student.setGender(Gender.M);
+        student.setCurrentGrade("6");
+        student.setParent(parent);
+        em.persist(student);
+
+        SubscriptionsEntity sub = new SubscriptionsEntity();
+        sub.setStudent(student);
+        sub.setPackageName("Gói");
+        sub.setStartDate(LocalDate.now().minusDays(30));
+        sub.setEndDate(end);
+        sub.setTotalSessions(total);
+        sub.setUsedSessions(used);
+        sub.setStatus(status);
+        em.persist(sub);
+        em.flush();
+        return sub.getId();
+    }
+}
@@ -0,0 +1,135 @@
+package com.teenup.contest.service;
+
+import com.teenup.contest.dto.request.RegisterRequest;
+import com.teenup.contest.entity.*;
+import com.teenup.contest.repository.ClassRegistrationsRepository;
+import com.teenup.contest.repository.ClassWaitlistRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Xếp chỗ từ hàng chờ: người trùng lịch được giữ lại trong hàng, người kế được xếp;
+ * người đã đăng ký thì bị bỏ khỏi hàng.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WaitlistAdmitter.class, ClassRegistrationService.class, StudentScheduleIndex.class, ClassRosterCache.class,
+        WaitlistAdmitterTest.Meters.class})
+class WaitlistAdmitterTest {
+
+    @TestConfiguration
+    static class Meters {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired WaitlistAdmitter admitter;
+    @Autowired ClassRegistrationService registrations;
+    @Autowired ClassWaitlistRepository waitlistRepo;
+    @Autowired ClassRegistrationsRepository regRepo;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+
+    TransactionTemplate tx;
+    Long parentId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(txManager);
+        parentId = tx.execute(s -> {
+            ParentsEntity p = new ParentsEntity();
+            p.setName("Phụ huynh");
+            p.setPhone("0900000000");
+            em.persist(p);
+            return p.getId();
+        });
+    }
+
+    @Test
+    void admit_keepsConflictedStudent_admitsNext_dropsAlreadyRegistered() {
+        Long full = clazz(1, "08:00-09:00", 2);
+        Long other = clazz(1, "08:30-09:30", 5);
+        Long conflicted = student();
+        Long registered = student();
+        Long next = student();
+        registrations.register(other, new RegisterRequest(conflicted));
+        registrations.register(full, new RegisterRequest(registered));
+        enqueue(full, conflicted);
+        enqueue(full, registered);
+        enqueue(full, next);
+
+        admitter.admit(full);
+
+        assertThat(regRepo.existsByClazzIdAndStudentId(full, next)).isTrue();
+        assertThat(waitlistRepo.findByClazzIdAndStudentId(full, conflicted)).isPresent();
+        assertThat(waitlistRepo.findByClazzIdAndStudentId(full, registered)).isEmpty();
+        assertThat(waitlistRepo.findByClazzIdAndStudentId(full, next)).isEmpty();
+    }
+
+    @Test
+    void admit_stopsWhenFull_keepsRestInOrder() {
+        Long c = clazz(2, "08:00-09:00", 1);
+        Long first = student();
+        Long second = student();
+        enqueue(c, first);
+        enqueue(c, second);
+
+        admitter.admit(c);
+
+        assertThat(regRepo.existsByClazzIdAndStudentId(c, first)).isTrue();
+        assertThat(waitlistRepo.findByClazzIdAndStudentId(c, second)).isPresent();
+    }
+
+    private void enqueue(Long classId, Long studentId) {
+        tx.executeWithoutResult(s -> em.persist(new ClassWaitlistEntity(
+                em.getReference(ClassesEntity.class, classId), em.getReference(StudentsEntity.class, studentId))));
+    }
+
+    private Long student() {
+        return tx.execute(s -> {
+            StudentsEntity st = new StudentsEntity();
+            st.setName("HS");
+            st.setDob(LocalDate.of(2012, 1, 1));
+            st.setGender(Gender.M);
+            st.setCurrentGrade("6");
+            st.setParent(em.getReference(ParentsEntity.class, parentId));
+            em.persist(st);
+            return st.getId();
+        });
+    }
+
+    private Long clazz(int day, String slot, int max) {
+        return tx.execute(s -> {
+            ClassesEntity c = new ClassesEntity();
+            c.setName("Lớp");
+            c.setSubject("Math");
+            c.setDayOfWeek(day);
+            c.setTimeSlot(slot);
+            c.setTeacherName("GV");
+            c.setMaxStudents(max);
+            em.persist(c);
+            return c.getId();
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package com.teenup.contest.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.teenup.contest.dto.request.AttendanceRequest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyService service = new IdempotencyService(
+            new InMemoryIdempotencyStore(Duration.ofMinutes(1), 100),
+            new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void sameKey_sameBody_runsOnce_differentBody_runsAgain() {
+        AtomicInteger runs = new AtomicInteger();
+        var monday = new AttendanceRequest(LocalDate.of(2025, 9, 8), List.of(3L, 4L));
+        var tuesday = new AttendanceRequest(LocalDate.of(2025, 9, 9), List.of(3L, 4L));
+
+        Integer first = service.execute("k1", service.scopeWithBody("attendance:1", monday),
+                Integer.class, runs::incrementAndGet);
+        Integer retry = service.execute("k1", service.scopeWithBody("attendance:1", monday),
+                Integer.class, runs::incrementAndGet);
+        Integer other = service.execute("k1", service.scopeWithBody("attendance:1", tuesday),
+                Integer.class, runs::incrementAndGet);
+
+        assertThat(retry).isEqualTo(first);
+        assertThat(other).isEqualTo(2);
+        assertThat(runs).hasValue(2);
+    }
+}
@@ -0,0 +1,52 @@
+package com.teenup.contest.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConditionalGetTest {
+
+    @Test
+    void etagDependsOnQueryAndFormat() {
+        String page1 = etagOf(null, "limit", "10");
+        String page2 = etagOf(null, "limit", "10", "cursor", "abc");
+        String cbor = etagOf("application/cbor", "limit", "10");
+
+        assertThat(etagOf(null)).isEqualTo("\"7-1-1-0\"");
+        assertThat(etagOf(null, "limit", "10")).isEqualTo(page1);
+        assertThat(page1).isNotEqualTo(page2).isNotEqualTo(cbor).isNotEqualTo(etagOf(null));
+        assertThat(etagOf("application/json", "limit", "10")).isEqualTo(page1);
+    }
+
+    @Test
+    void matchingIfNoneMatch_notModified_withVaryAccept() {
+        String etag = etagOf(null, "fields", "id,name");
+        MockHttpServletRequest req = request(null, "fields", "id,name");
+        req.addHeader("If-None-Match", etag);
+        MockHttpServletResponse res = new MockHttpServletResponse();
+
+        assertThat(ConditionalGet.notModified(new ServletWebRequest(req, res), "7-1-1-0")).isTrue();
+        assertThat(res.getHeader("Vary")).isEqualTo("Accept");
+
+        MockHttpServletRequest other = request(null, "fields", "id");
+        other.addHeader("If-None-Match", etag);
+        assertThat(ConditionalGet.notModified(new ServletWebRequest(other, new MockHttpServletResponse()), "7-1-1-0"))
+                .isFalse();
+    }
+
+    private static String etagOf(String accept, String... params) {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        ConditionalGet.notModified(new ServletWebRequest(request(accept, params), res), "7-1-1-0");
+        return res.getHeader("ETag");
+    }
+
+    private static MockHttpServletRequest request(String accept, String... params) {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/students/list");
+        if (accept != null) req.addHeader("Accept", accept);
+        for (int i = 0; i < params.length; i += 2) req.addParameter(params[i], params[i + 1]);
+        return req;
+    }
+}
@@ -0,0 +1,100 @@
+package com.teenup.contest.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeeklyOccupancyTest {
+
+    private static TimeSlot slot(String s) {
+        return TimeSlot.parse(s);
+    }
+
+    @Test
+    void empty_neverIntersects() {
+        assertThat(WeeklyOccupancy.EMPTY.intersects(1, slot("00:00-23:59"))).isFalse();
+        assertThat(WeeklyOccupancy.EMPTY.classIds()).isEmpty();
+    }
+
+    @Test
+    void intersects_sameDayOverlap_only() {
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY.with(1L, 2, slot("08:00-09:30"));
+
+        assertThat(occ.intersects(2, slot("09:00-10:00"))).isTrue();
+        assertThat(occ.intersects(2, slot("07:00-08:01"))).isTrue();
+        assertThat(occ.intersects(2, slot("08:30-09:00"))).isTrue();   // nằm trọn bên trong
+        assertThat(occ.intersects(2, slot("07:00-11:00"))).isTrue();   // phủ trọn
+        assertThat(occ.intersects(3, slot("08:00-09:30"))).isFalse();  // khác ngày
+    }
+
+    @Test
+    void intersects_touchingEdges_noConflict() {
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY.with(1L, 2, slot("08:00-09:30"));
+
+        assertThat(occ.intersects(2, slot("09:30-10:30"))).isFalse();
+        assertThat(occ.intersects(2, slot("07:00-08:00"))).isFalse();
+    }
+
+    @Test
+    void intersects_acrossWordBoundaries_andDayEdges() {
+        // 01:03-01:05 → bit 63..65 của ngày 1, vắt qua 2 word
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY.with(1L, 1, slot("01:03-01:05"))
+                .with(2L, 7, slot("23:00-23:59"));
+
+        assertThat(occ.intersects(1, slot("01:04-01:06"))).isTrue();
+        assertThat(occ.intersects(1, slot("01:05-02:00"))).isFalse();
+        assertThat(occ.intersects(7, slot("23:58-23:59"))).isTrue();
+        assertThat(occ.intersects(1, slot("00:00-00:30"))).isFalse();  // ngày 7 không tràn sang ngày 1
+    }
+
+    @Test
+    void ignoreClass_stillSeesOtherOverlappingClass() {
+        // dữ liệu cũ: 2 lớp chồng giờ cùng ngày
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY
+                .with(1L, 2, slot("08:00-10:00"))
+                .with(2L, 2, slot("09:00-09:30"));
+
+        assertThat(occ.intersects(2, slot("08:00-08:30"), 1L)).isFalse();
+        assertThat(occ.intersects(2, slot("09:15-09:45"), 1L)).isTrue();  // lớp 2 vẫn chiếm
+        assertThat(occ.intersects(2, slot("09:15-09:45"), 2L)).isTrue();  // lớp 1 vẫn chiếm
+        assertThat(occ.intersects(2, slot("09:15-09:45"), 99L)).isTrue();
+    }
+
+    @Test
+    void without_keepsOverlappingNeighbourBits() {
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY
+                .with(1L, 4, slot("14:00-16:00"))
+                .with(2L, 4, slot("15:00-17:00"));
+
+        WeeklyOccupancy rest = occ.without(1L);
+        assertThat(rest.contains(1L)).isFalse();
+        assertThat(rest.intersects(4, slot("15:30-15:45"))).isTrue();
+        assertThat(rest.intersects(4, slot("14:00-15:00"))).isFalse();
+        assertThat(occ.without(42L)).isSameAs(occ);
+    }
+
+    @Test
+    void with_isImmutable_andReplacesSameClass() {
+        WeeklyOccupancy a = WeeklyOccupancy.EMPTY.with(1L, 5, slot("10:00-11:00"));
+        WeeklyOccupancy b = a.with(1L, 5, slot("13:00-14:00"));
+
+        assertThat(a.intersects(5, slot("10:30-10:45"))).isTrue();
+        assertThat(b.intersects(5, slot("10:30-10:45"))).isFalse();
+        assertThat(b.intersects(5, slot("13:30-13:45"))).isTrue();
+        assertThat(b.classIds()).containsExactly(1L);
+    }
+
+    @Test
+    void busyIntervals_mergedAndSortedPerDay() {
+        WeeklyOccupancy occ = WeeklyOccupancy.EMPTY
+                .with(1L, 2, slot("13:00-14:00"))
+                .with(2L, 2, slot("08:00-09:00"))
+                .with(3L, 2, slot("08:30-10:00"))   // chồng lớp 2
+                .with(4L, 2, slot("10:00-11:00"))   // chạm lớp 3
+                .with(5L, 3, slot("08:00-09:00"));
+
+        assertThat(occ.busyIntervals(2)).containsExactly(480, 660, 780, 840);
+        assertThat(occ.busyIntervals(3)).containsExactly(480, 540);
+        assertThat(occ.busyIntervals(4)).isEmpty();
+    }
+}